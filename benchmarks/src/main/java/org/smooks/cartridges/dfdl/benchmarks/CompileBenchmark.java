@@ -0,0 +1,169 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.benchmarks;
+
+import org.apache.daffodil.japi.DataProcessor;
+import org.apache.daffodil.japi.ValidationMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.smooks.Smooks;
+import org.smooks.api.resource.config.ResourceConfig;
+import org.smooks.cartridges.dfdl.DataProcessorFactory;
+import org.smooks.cartridges.dfdl.DfdlSchema;
+import org.smooks.engine.DefaultApplicationContextBuilder;
+import org.smooks.engine.resource.config.DefaultResourceConfig;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contrasts cold DFDL schema compilation with reloading a schema saved by <code>cacheOnDisk</code> and with a warm
+ * {@link DataProcessorFactory#createDataProcessor()} served from the in-memory cache. Cold compilation is measured
+ * single-shot, each in a fresh fork, so that it is representative of application startup. Note that priming the on-disk
+ * cache warms up the JVM which means that {@link #reloadFromDisk(SchemaState, DiskCacheState)} is a best-case measurement.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CompileBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SchemaState {
+
+        @Param({"CSV", "WIDE", "NESTED"})
+        public Workload workload;
+
+        protected Path workingDirectory;
+        protected String schemaLocation;
+        protected URI schemaUri;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Throwable {
+            workingDirectory = Files.createTempDirectory("dfdl-benchmarks");
+            schemaLocation = workload.getSchemaUri(workingDirectory);
+            schemaUri = new File(schemaLocation).toURI();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            Files.walk(workingDirectory).sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+
+        public DfdlSchema newDfdlSchema(boolean cacheOnDisk) {
+            return new DfdlSchema(schemaUri, ValidationMode.Off, cacheOnDisk, false, workload.getDistinguishedRootNode(), null, false);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class DiskCacheState {
+
+        @Setup(Level.Trial)
+        public void setUp(SchemaState schemaState) throws Throwable {
+            schemaState.newDfdlSchema(true).compile();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class DataProcessorFactoryState {
+
+        protected Smooks smooks;
+        protected DataProcessorFactory dataProcessorFactory;
+
+        @Setup(Level.Trial)
+        public void setUp(SchemaState schemaState) {
+            smooks = new Smooks(new DefaultApplicationContextBuilder().withClassLoader(getClass().getClassLoader()).build());
+            final ResourceConfig resourceConfig = new DefaultResourceConfig();
+            resourceConfig.setParameter("distinguishedRootNode", schemaState.workload.getDistinguishedRootNode());
+            dataProcessorFactory = new DataProcessorFactory();
+            dataProcessorFactory.setApplicationContext(smooks.getApplicationContext());
+            dataProcessorFactory.setResourceConfig(resourceConfig);
+            dataProcessorFactory.setSchemaUri(schemaState.schemaLocation);
+            dataProcessorFactory.createDataProcessor();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            smooks.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public DataProcessor coldCompile(SchemaState schemaState) throws Throwable {
+        return schemaState.newDfdlSchema(false).compile();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public DataProcessor reloadFromDisk(SchemaState schemaState, DiskCacheState diskCacheState) throws Throwable {
+        return schemaState.newDfdlSchema(true).compile();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    public DataProcessor warmCompileOrGet(DataProcessorFactoryState dataProcessorFactoryState) {
+        return dataProcessorFactoryState.dataProcessorFactory.createDataProcessor();
+    }
+}
@@ -0,0 +1,139 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.benchmarks;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.daffodil.japi.DataProcessor;
+import org.apache.daffodil.japi.ParseResult;
+import org.apache.daffodil.japi.infoset.XMLTextInfosetOutputter;
+import org.apache.daffodil.japi.io.InputSourceDataInputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.smooks.FilterSettings;
+import org.smooks.Smooks;
+import org.smooks.api.resource.config.ResourceConfig;
+import org.smooks.cartridges.dfdl.DataProcessorFactory;
+import org.smooks.cartridges.dfdl.unparser.DfdlUnparser;
+import org.smooks.engine.DefaultApplicationContextBuilder;
+import org.smooks.engine.resource.config.DefaultResourceConfig;
+import org.smooks.io.sink.StreamSink;
+import org.smooks.io.source.ByteSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link DfdlUnparser} serializing an XML event stream back to the workload's data format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UnparseBenchmark {
+
+    @Param({"CSV", "WIDE", "NESTED"})
+    public Workload workload;
+
+    @Param({"1000"})
+    public int records;
+
+    private Path workingDirectory;
+    private byte[] xml;
+    private int dataLength;
+    private Smooks smooks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workingDirectory = Files.createTempDirectory("dfdl-benchmarks");
+        final byte[] data = workload.generateData(records);
+        dataLength = data.length;
+
+        smooks = new Smooks(new DefaultApplicationContextBuilder().withClassLoader(getClass().getClassLoader()).build());
+        final ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("distinguishedRootNode", workload.getDistinguishedRootNode());
+
+        final DataProcessorFactory dataProcessorFactory = new DataProcessorFactory();
+        dataProcessorFactory.setApplicationContext(smooks.getApplicationContext());
+        dataProcessorFactory.setResourceConfig(resourceConfig);
+        dataProcessorFactory.setSchemaUri(workload.getSchemaUri(workingDirectory));
+        final DataProcessor dataProcessor = dataProcessorFactory.createDataProcessor();
+
+        final ByteArrayOutputStream xmlOutputStream = new ByteArrayOutputStream();
+        final ParseResult parseResult = dataProcessor.parse(new InputSourceDataInputStream(data), new XMLTextInfosetOutputter(xmlOutputStream, false));
+        if (parseResult.isError()) {
+            throw new IllegalStateException(parseResult.getDiagnostics().toString());
+        }
+        xml = xmlOutputStream.toByteArray();
+
+        smooks.setFilterSettings(FilterSettings.newSaxNgSettings().setDefaultSerializationOn(false));
+        smooks.addVisitor(new DfdlUnparser(dataProcessor), "*");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        smooks.close();
+        Files.walk(workingDirectory).sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+    }
+
+    @Benchmark
+    public void unparse(ThroughputCounters throughputCounters) {
+        smooks.filterSource(new ByteSource(xml), new StreamSink<>(NullOutputStream.INSTANCE));
+        throughputCounters.records += records;
+        throughputCounters.bytes += dataLength;
+    }
+}
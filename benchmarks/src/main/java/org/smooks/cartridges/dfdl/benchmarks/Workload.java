@@ -0,0 +1,219 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Benchmark workloads. Apart from {@link #CSV}, which reuses the schema from the README, workloads generate their DFDL
+ * schema on the fly so that the shape of the data (i.e., number of fields per record, nesting depth) can be varied
+ * without having to maintain large schema files. Schemas are always written to the working directory so that they can
+ * be cached on disk.
+ */
+public enum Workload {
+
+    /**
+     * Short, flat CSV records of 4 string fields.
+     */
+    CSV {
+        @Override
+        public String getSchemaUri(Path workingDirectory) throws IOException {
+            Files.createDirectories(workingDirectory);
+            final Path schemaPath = workingDirectory.resolve("csv.dfdl.xsd");
+            try (InputStream inputStream = Workload.class.getResourceAsStream("/csv.dfdl.xsd")) {
+                Files.copy(inputStream, schemaPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            return schemaPath.toAbsolutePath().toString();
+        }
+
+        @Override
+        public String getDistinguishedRootNode() {
+            return "{http://example.com}file";
+        }
+
+        @Override
+        public byte[] generateData(int records) {
+            final StringBuilder stringBuilder = new StringBuilder("last,first,middle,DOB\n");
+            for (int i = 0; i < records; i++) {
+                stringBuilder.append("smith").append(i).append(",robert,brandon,1988-03-24\n");
+            }
+            return stringBuilder.append("<EOF>").toString().getBytes(StandardCharsets.US_ASCII);
+        }
+    },
+
+    /**
+     * Wide records of 60 string, integer, and decimal fields.
+     */
+    WIDE {
+        private static final int FIELDS = 60;
+
+        @Override
+        public String getSchemaUri(Path workingDirectory) throws IOException {
+            final StringBuilder fields = new StringBuilder();
+            for (int i = 0; i < FIELDS; i++) {
+                fields.append("<xs:element name=\"f").append(i).append("\" type=\"").append(FIELD_TYPES[i % FIELD_TYPES.length]).append("\"/>");
+            }
+            return writeSchema(workingDirectory, "wide.dfdl.xsd",
+                    "<xs:sequence dfdl:separator=\",\">" + fields + "</xs:sequence>");
+        }
+
+        @Override
+        public byte[] generateData(int records) {
+            final StringBuilder stringBuilder = new StringBuilder();
+            for (int i = 0; i < records; i++) {
+                for (int j = 0; j < FIELDS; j++) {
+                    if (j > 0) {
+                        stringBuilder.append(',');
+                    }
+                    appendFieldValue(stringBuilder, i, j);
+                }
+                stringBuilder.append('\n');
+            }
+            return stringBuilder.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    },
+
+    /**
+     * Records of 8 nested groups, each group holding 6 string, integer, and decimal fields.
+     */
+    NESTED {
+        private static final int GROUPS = 8;
+        private static final int FIELDS_PER_GROUP = 6;
+
+        @Override
+        public String getSchemaUri(Path workingDirectory) throws IOException {
+            final StringBuilder fields = new StringBuilder();
+            for (int i = 0; i < FIELDS_PER_GROUP; i++) {
+                fields.append("<xs:element name=\"f").append(i).append("\" type=\"").append(FIELD_TYPES[i % FIELD_TYPES.length]).append("\"/>");
+            }
+            return writeSchema(workingDirectory, "nested.dfdl.xsd",
+                    "<xs:sequence dfdl:separator=\";\">" +
+                        "<xs:element name=\"group\" minOccurs=\"" + GROUPS + "\" maxOccurs=\"" + GROUPS + "\" dfdl:occursCountKind=\"fixed\">" +
+                            "<xs:complexType><xs:sequence dfdl:separator=\",\">" + fields + "</xs:sequence></xs:complexType>" +
+                        "</xs:element>" +
+                    "</xs:sequence>");
+        }
+
+        @Override
+        public byte[] generateData(int records) {
+            final StringBuilder stringBuilder = new StringBuilder();
+            for (int i = 0; i < records; i++) {
+                for (int j = 0; j < GROUPS; j++) {
+                    if (j > 0) {
+                        stringBuilder.append(';');
+                    }
+                    for (int k = 0; k < FIELDS_PER_GROUP; k++) {
+                        if (k > 0) {
+                            stringBuilder.append(',');
+                        }
+                        appendFieldValue(stringBuilder, i, k);
+                    }
+                }
+                stringBuilder.append('\n');
+            }
+            return stringBuilder.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    };
+
+    public static final String SYNTHETIC_NAMESPACE = "http://smooks.org/cartridges/dfdl/benchmarks";
+
+    private static final String[] FIELD_TYPES = {"xs:string", "xs:int", "xs:decimal"};
+
+    /**
+     * Resolves the location of the workload's DFDL schema, generating the schema inside the working directory if need be.
+     */
+    public abstract String getSchemaUri(Path workingDirectory) throws IOException;
+
+    /**
+     * Generates test data holding the given number of records.
+     */
+    public abstract byte[] generateData(int records);
+
+    public String getDistinguishedRootNode() {
+        return "{" + SYNTHETIC_NAMESPACE + "}records";
+    }
+
+    private static void appendFieldValue(StringBuilder stringBuilder, int record, int field) {
+        switch (field % FIELD_TYPES.length) {
+            case 0:
+                stringBuilder.append("value").append(record).append('-').append(field);
+                break;
+            case 1:
+                stringBuilder.append(record * 31 + field);
+                break;
+            default:
+                stringBuilder.append(record).append('.').append(field);
+        }
+    }
+
+    private static String writeSchema(Path workingDirectory, String fileName, String recordContent) throws IOException {
+        final String schema =
+                "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" xmlns:dfdl=\"http://www.ogf.org/dfdl/dfdl-1.0/\" " +
+                        "xmlns:b=\"" + SYNTHETIC_NAMESPACE + "\" targetNamespace=\"" + SYNTHETIC_NAMESPACE + "\" elementFormDefault=\"unqualified\">" +
+                    "<xs:include schemaLocation=\"org/apache/daffodil/xsd/DFDLGeneralFormat.dfdl.xsd\"/>" +
+                    "<xs:annotation><xs:appinfo source=\"http://www.ogf.org/dfdl/\">" +
+                        "<dfdl:format ref=\"b:GeneralFormat\" separator=\"\" initiator=\"\" terminator=\"\" textTrimKind=\"none\" " +
+                            "initiatedContent=\"no\" ignoreCase=\"no\" separatorPosition=\"infix\" occursCountKind=\"implicit\" " +
+                            "emptyValueDelimiterPolicy=\"both\" representation=\"text\" textNumberRep=\"standard\" " +
+                            "lengthKind=\"delimited\" encoding=\"UTF-8\" encodingErrorPolicy=\"error\"/>" +
+                    "</xs:appinfo></xs:annotation>" +
+                    "<xs:element name=\"records\"><xs:complexType>" +
+                        "<xs:sequence dfdl:separator=\"%NL;\" dfdl:separatorPosition=\"postfix\">" +
+                            "<xs:element name=\"record\" maxOccurs=\"unbounded\"><xs:complexType>" + recordContent + "</xs:complexType></xs:element>" +
+                        "</xs:sequence>" +
+                    "</xs:complexType></xs:element>" +
+                "</xs:schema>";
+
+        Files.createDirectories(workingDirectory);
+        final Path schemaPath = workingDirectory.resolve(fileName);
+        Files.write(schemaPath, schema.getBytes(StandardCharsets.UTF_8));
+
+        return schemaPath.toAbsolutePath().toString();
+    }
+}
@@ -0,0 +1,115 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl;
+
+import org.smooks.api.ApplicationContext;
+import org.smooks.api.TypedKey;
+import org.smooks.engine.lookup.GlobalParamsLookup;
+
+import jakarta.annotation.PreDestroy;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Default executor of the cartridge: a bounded fork-join pool of named daemon threads which is registered in, and shut
+ * down together with, the registry.
+ */
+public class DaemonPool implements Executor {
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final ForkJoinPool forkJoinPool;
+
+    /**
+     * @param threadNamePrefix prefix of the worker thread names, followed by the pool number and the worker index
+     */
+    public DaemonPool(final String threadNamePrefix, final int parallelism) {
+        final int poolNumber = POOL_NUMBER.incrementAndGet();
+        forkJoinPool = new ForkJoinPool(parallelism, pool -> {
+            final ForkJoinWorkerThread forkJoinWorkerThread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            forkJoinWorkerThread.setName(threadNamePrefix + "-" + poolNumber + "-" + forkJoinWorkerThread.getPoolIndex());
+            return forkJoinWorkerThread;
+        }, null, false);
+    }
+
+    /**
+     * Looks up the executor registered under the key or, when none is registered, registers a new pool. The pool's
+     * parallelism is read from the global parameter and defaults to the number of available processors.
+     */
+    public static Executor getOrCreate(final ApplicationContext applicationContext, final TypedKey<Executor> executorTypedKey, final String parallelismParam, final String threadNamePrefix) {
+        Executor executor = applicationContext.getRegistry().lookup(executorTypedKey);
+        if (executor == null) {
+            synchronized (DaemonPool.class) {
+                executor = applicationContext.getRegistry().lookup(executorTypedKey);
+                if (executor == null) {
+                    final Object parallelism = applicationContext.getRegistry().lookup(new GlobalParamsLookup()).getParameterValue(parallelismParam);
+                    executor = new DaemonPool(threadNamePrefix, parallelism == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(parallelism.toString().trim()));
+                    applicationContext.getRegistry().registerObject(executorTypedKey, executor);
+                }
+            }
+        }
+
+        return executor;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        forkJoinPool.execute(command);
+    }
+
+    public int getParallelism() {
+        return forkJoinPool.getParallelism();
+    }
+
+    public boolean isShutdown() {
+        return forkJoinPool.isShutdown();
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        forkJoinPool.shutdownNow();
+    }
+}
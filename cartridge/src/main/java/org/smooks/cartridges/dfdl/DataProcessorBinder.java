@@ -0,0 +1,113 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl;
+
+import org.apache.daffodil.japi.DataProcessor;
+import org.smooks.api.resource.config.ResourceConfig;
+
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Binds the configured DFDL variables to the {@link DataProcessor} of a resource config. The processor is looked up
+ * from the supplier, typically the {@link DataProcessorFactory} and therefore the {@link DataProcessorCache}, each time
+ * it is needed rather than held so that a processor evicted from the cache is released. The configured variables are
+ * bound again, and the {@link DynamicVariables} memo is created afresh, only when the supplier hands out a different
+ * processor than the last time.
+ */
+public class DataProcessorBinder {
+
+    private final Supplier<DataProcessor> dataProcessorSupplier;
+    private final ResourceConfig resourceConfig;
+    private volatile Binding binding;
+
+    public DataProcessorBinder(final Supplier<DataProcessor> dataProcessorSupplier, final ResourceConfig resourceConfig) {
+        this.dataProcessorSupplier = dataProcessorSupplier;
+        this.resourceConfig = resourceConfig;
+    }
+
+    /**
+     * @param variablesBinder binds the configured variables to the processor handed out by the supplier
+     */
+    public Binding bind(final UnaryOperator<DataProcessor> variablesBinder) {
+        final DataProcessor dataProcessor = dataProcessorSupplier.get();
+        Binding binding = this.binding;
+        if (binding == null || binding.source != dataProcessor) {
+            synchronized (this) {
+                binding = this.binding;
+                if (binding == null || binding.source != dataProcessor) {
+                    binding = new Binding(dataProcessor, variablesBinder.apply(dataProcessor), new DynamicVariables(resourceConfig));
+                    this.binding = binding;
+                }
+            }
+        }
+
+        return binding;
+    }
+
+    public static final class Binding {
+        private final DataProcessor source;
+        private final DataProcessor dataProcessor;
+        private final DynamicVariables dynamicVariables;
+
+        private Binding(final DataProcessor source, final DataProcessor dataProcessor, final DynamicVariables dynamicVariables) {
+            this.source = source;
+            this.dataProcessor = dataProcessor;
+            this.dynamicVariables = dynamicVariables;
+        }
+
+        /**
+         * @return the processor bound to the configured variables
+         */
+        public DataProcessor getDataProcessor() {
+            return dataProcessor;
+        }
+
+        /**
+         * @return the memo of the processors bound to the variables of messages, which is tied to this binding
+         */
+        public DynamicVariables getDynamicVariables() {
+            return dynamicVariables;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl;
+
+import org.apache.daffodil.japi.DataProcessor;
+
+/**
+ * Cache of compiled DFDL schemas shared by the {@link DataProcessorFactory DataProcessorFactories} of an application
+ * context. A custom implementation can be plugged in by registering it in the registry under
+ * <code>DataProcessorFactory.class</code> before Smooks creates its content handlers.
+ */
+public interface DataProcessorCache {
+
+    /**
+     * Gets the {@link DataProcessor} cached under the given key or loads it when absent. Concurrent callers asking for
+     * the same key while it is loading wait for the load to complete instead of loading it again. A failed load is not
+     * cached.
+     *
+     * @throws DfdlSmooksException if the loader fails
+     */
+    DataProcessor get(String key, Loader loader);
+
+    /**
+     * @return the {@link DataProcessor} cached under the given key, or <code>null</code> if absent or still loading
+     */
+    DataProcessor getIfPresent(String key);
+
+    void invalidate(String key);
+
+    void invalidateAll();
+
+    /**
+     * @return the number of cached entries, including entries which are still loading
+     */
+    long size();
+
+    DataProcessorCacheStats getStats();
+
+    @FunctionalInterface
+    interface Loader {
+        DataProcessor load() throws Throwable;
+
+        /**
+         * Cheaply estimates the weight of the {@link DataProcessor} just loaded, for instance from the size of the DFDL
+         * schema it was compiled from.
+         *
+         * @return the weight, or a negative number to let the cache weigh the {@link DataProcessor} itself
+         */
+        default long weigh(DataProcessor dataProcessor) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl;
+
+import org.apache.daffodil.japi.DataProcessor;
+import org.apache.daffodil.japi.ValidationMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.api.ApplicationContext;
+import org.smooks.api.resource.config.ResourceConfig;
+import org.smooks.cartridges.dfdl.metrics.DfdlMetrics;
+import org.smooks.cartridges.dfdl.metrics.JfrEvents;
+import org.smooks.cartridges.dfdl.metrics.SchemaLookupEvent;
+import org.smooks.engine.lookup.GlobalParamsLookup;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+    public class DataProcessorFactory {
+
+    public static final String CACHE_MAX_ENTRIES_PARAM = "dfdl.cache.maxEntries";
+    public static final String CACHE_MAX_WEIGHT_PARAM = "dfdl.cache.maxWeight";
+    public static final String CACHE_EVICTION_POLICY_PARAM = "dfdl.cache.evictionPolicy";
+    public static final String CACHE_EXPIRE_AFTER_ACCESS_PARAM = "dfdl.cache.expireAfterAccess";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataProcessorFactory.class);
+
+    @Inject
+    protected ApplicationContext applicationContext;
+
+    @Inject
+    protected ResourceConfig resourceConfig;
+
+    @Inject
+    @Named("schemaUri")
+    protected String schemaUri;
+
+    private volatile DfdlSchema dfdlSchema;
+
+    /**
+     * Gets the compiled DFDL schema from the {@link DataProcessorCache}, compiling it when absent. The
+     * {@link DfdlSchema} is created once so that callers looking up the processor for each message only pay for the
+     * cache lookup.
+     */
+    public DataProcessor createDataProcessor() {
+        DfdlSchema dfdlSchema = this.dfdlSchema;
+        if (dfdlSchema == null) {
+            dfdlSchema = createDfdlSchema();
+            this.dfdlSchema = dfdlSchema;
+        }
+        return compileOrGet(dfdlSchema);
+    }
+
+    protected DfdlSchema createDfdlSchema() {
+        try {
+            final DfdlSchema dfdlSchema = new DfdlSchema(resolveDfdlSchemaUri(schemaUri, applicationContext),
+                    ValidationMode.valueOf(resourceConfig.getParameterValue("validationMode", String.class, "Off")),
+                    Boolean.parseBoolean(resourceConfig.getParameterValue("cacheOnDisk", String.class, "false")),
+                    Boolean.parseBoolean(resourceConfig.getParameterValue("debugging", String.class, "false")),
+                    resourceConfig.getParameterValue("distinguishedRootNode", String.class),
+                    resourceConfig.getParameterValue("schematronUrl", String.class),
+                    Boolean.parseBoolean(resourceConfig.getParameterValue("schematronValidation", String.class)));
+            // schemas compiled ahead of time are looked up on the application's classpath
+            dfdlSchema.setClassLoader(applicationContext.getClassLoader());
+
+            return dfdlSchema;
+        } catch (Throwable t) {
+            throw new DfdlSmooksException(t);
+        }
+    }
+
+    protected URI resolveDfdlSchemaUri(final String schemaUri, final ApplicationContext applicationContext) throws URISyntaxException {
+        final File file = new File(schemaUri);
+        if (file.exists()) {
+            return file.toURI();
+        } else {
+            final URL resource = applicationContext.getClassLoader().getResource(schemaUri.startsWith("/") ? schemaUri.replaceFirst("/", "") : schemaUri);
+            if (resource != null) {
+                return resource.toURI();
+            } else {
+                throw new DfdlSmooksException(String.format("Unable to resolve DFDL schema location: %s", schemaUri));
+            }
+        }
+    }
+
+    /**
+     * Asynchronously creates the {@link DataProcessor} on the given executor. The returned future completes
+     * exceptionally when the DFDL schema fails to compile.
+     */
+    public CompletableFuture<DataProcessor> createDataProcessorAsync(final Executor executor) {
+        return CompletableFuture.supplyAsync(this::createDataProcessor, executor);
+    }
+
+    /**
+     * Gets the compiled DFDL schema from the {@link DataProcessorCache} or compiles it when absent. Compilation takes
+     * place outside of the cache's lock: concurrent callers asking for the same DFDL schema wait on the compiling
+     * caller while callers asking for different DFDL schemas proceed unhindered. A failed compilation is not cached so
+     * that it can be retried.
+     */
+    protected DataProcessor compileOrGet(final DfdlSchema dfdlSchema) {
+        final String key = dfdlSchema.getName();
+        final SchemaLookupEvent schemaLookupEvent = JfrEvents.isAvailable() ? new SchemaLookupEvent() : null;
+        if (schemaLookupEvent != null) {
+            schemaLookupEvent.begin();
+            schemaLookupEvent.hit = true;
+        }
+        try {
+            return getDataProcessorCache().get(key, new DataProcessorCache.Loader() {
+                @Override
+                public DataProcessor load() throws Throwable {
+                    if (schemaLookupEvent != null) {
+                        schemaLookupEvent.hit = false;
+                    }
+                    LOGGER.info("Cache miss for key {}. Compiling and caching DFDL schema {}...", key, dfdlSchema.getUri());
+                    final long startNanos = System.nanoTime();
+                    final DataProcessor dataProcessor = dfdlSchema.compile();
+                    DfdlMetrics.lookup(applicationContext).recordCompile(schemaUri, System.nanoTime() - startNanos);
+                    return dataProcessor;
+                }
+
+                /**
+                 * The DFDL schema was read to fingerprint it while compiling so its size comes for free.
+                 */
+                @Override
+                public long weigh(final DataProcessor dataProcessor) {
+                    try {
+                        return dfdlSchema.getSize();
+                    } catch (IOException e) {
+                        return -1;
+                    }
+                }
+            });
+        } finally {
+            if (schemaLookupEvent != null && schemaLookupEvent.shouldCommit()) {
+                schemaLookupEvent.schemaUri = schemaUri;
+                schemaLookupEvent.key = key;
+                schemaLookupEvent.commit();
+            }
+        }
+    }
+
+    protected DataProcessorCache getDataProcessorCache() {
+        final ApplicationContext applicationContext = getApplicationContext();
+
+        if (applicationContext.getRegistry().lookup(DataProcessorFactory.class) == null) {
+            synchronized (DataProcessorFactory.class) {
+                if (applicationContext.getRegistry().lookup(DataProcessorFactory.class) == null) {
+                    applicationContext.getRegistry().registerObject(DataProcessorFactory.class, newDataProcessorCache());
+                }
+            }
+        }
+
+        return applicationContext.getRegistry().lookup(DataProcessorFactory.class);
+    }
+
+    /**
+     * Creates the default {@link DataProcessorCache} from the <code>dfdl.cache.*</code> global parameters.
+     */
+    protected DataProcessorCache newDataProcessorCache() {
+        final GlobalParamsLookup.ParameterAccessor globalParams = applicationContext.getRegistry().lookup(new GlobalParamsLookup());
+        final Object maxEntries = globalParams.getParameterValue(CACHE_MAX_ENTRIES_PARAM);
+        final Object maxWeight = globalParams.getParameterValue(CACHE_MAX_WEIGHT_PARAM);
+        final Object evictionPolicy = globalParams.getParameterValue(CACHE_EVICTION_POLICY_PARAM);
+        final Object expireAfterAccess = globalParams.getParameterValue(CACHE_EXPIRE_AFTER_ACCESS_PARAM);
+
+        return new DefaultDataProcessorCache(maxEntries == null ? Long.MAX_VALUE : Long.parseLong(maxEntries.toString().trim()),
+                maxWeight == null ? Long.MAX_VALUE : Long.parseLong(maxWeight.toString().trim()),
+                maxWeight == null ? dataProcessor -> 1 : DefaultDataProcessorCache.SAVED_SIZE_WEIGHER,
+                evictionPolicy == null ? DefaultDataProcessorCache.EvictionPolicy.LRU : DefaultDataProcessorCache.EvictionPolicy.valueOf(evictionPolicy.toString().trim().toUpperCase()),
+                expireAfterAccess == null ? null : Duration.parse(expireAfterAccess.toString().trim()));
+    }
+
+    public ApplicationContext getApplicationContext() {
+        return applicationContext;
+    }
+
+    public void setApplicationContext(final ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    public ResourceConfig getResourceConfig() {
+        return resourceConfig;
+    }
+
+    public void setResourceConfig(final ResourceConfig resourceConfig) {
+        this.resourceConfig = resourceConfig;
+    }
+
+    public String getSchemaUri() {
+        return schemaUri;
+    }
+
+    public void setSchemaUri(String schemaUri) {
+        this.schemaUri = schemaUri;
+    }
+}
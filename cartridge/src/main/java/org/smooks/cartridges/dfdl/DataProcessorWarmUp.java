@@ -0,0 +1,217 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl;
+
+import org.apache.daffodil.japi.DataProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.api.ApplicationContext;
+import org.smooks.api.TypedKey;
+import org.smooks.api.resource.config.ResourceConfig;
+import org.smooks.api.resource.config.ResourceConfigSeq;
+import org.smooks.engine.injector.Scope;
+import org.smooks.engine.lifecycle.PostConstructLifecyclePhase;
+import org.smooks.engine.lookup.GlobalParamsLookup;
+import org.smooks.engine.lookup.LifecycleManagerLookup;
+import org.smooks.engine.lookup.ResourceConfigSeqsLookup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Compiles in the background the DFDL schemas of every <code>dfdl:parser</code> and <code>dfdl:unparser</code> found in
+ * the application context. The first message then only waits for the compilation of its own DFDL schema.
+ * <p>
+ * Warm-up is switched on with the <code>dfdl.compileOnStartup</code> global parameter. Alternatively, it can be started
+ * programmatically with {@link #warmUp(ApplicationContext)} once the Smooks config is loaded. Distinct DFDL schemas are
+ * discovered up front and compiled concurrently on the {@link Executor} registered under {@link #EXECUTOR_TYPED_KEY}
+ * or, when absent, on a fork-join pool bounded by the <code>dfdl.compileParallelism</code> global parameter (defaults
+ * to the number of available processors).
+ */
+public final class DataProcessorWarmUp {
+
+    public static final String COMPILE_ON_STARTUP_PARAM = "dfdl.compileOnStartup";
+    public static final String COMPILE_PARALLELISM_PARAM = "dfdl.compileParallelism";
+    public static final TypedKey<Executor> EXECUTOR_TYPED_KEY = TypedKey.of(DataProcessorWarmUp.class.getName() + "#executor");
+    public static final TypedKey<CompletableFuture<Void>> WARM_UP_TYPED_KEY = TypedKey.of(DataProcessorWarmUp.class.getName() + "#warmUp");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataProcessorWarmUp.class);
+
+    private DataProcessorWarmUp() {
+
+    }
+
+    public static boolean isCompileOnStartup(final ApplicationContext applicationContext) {
+        final Object compileOnStartup = applicationContext.getRegistry().lookup(new GlobalParamsLookup()).getParameterValue(COMPILE_ON_STARTUP_PARAM);
+        return compileOnStartup != null && Boolean.parseBoolean(compileOnStartup.toString().trim());
+    }
+
+    /**
+     * Starts compiling the DFDL schemas of the application context unless compilation was already started.
+     *
+     * @return a future which completes once all DFDL schemas are compiled, or completes exceptionally should any DFDL
+     * schema fail to compile
+     */
+    public static CompletableFuture<Void> warmUp(final ApplicationContext applicationContext) {
+        CompletableFuture<Void> warmUpFuture = getWarmUp(applicationContext);
+        if (warmUpFuture == null) {
+            synchronized (DataProcessorWarmUp.class) {
+                warmUpFuture = getWarmUp(applicationContext);
+                if (warmUpFuture == null) {
+                    warmUpFuture = compile(applicationContext, resourceConfig -> true);
+                    applicationContext.getRegistry().registerObject(WARM_UP_TYPED_KEY, warmUpFuture);
+                }
+            }
+        }
+
+        return warmUpFuture;
+    }
+
+    /**
+     * @return the future of the warm-up, or <code>null</code> if warm-up was not started
+     */
+    public static CompletableFuture<Void> getWarmUp(final ApplicationContext applicationContext) {
+        return applicationContext.getRegistry().lookup(WARM_UP_TYPED_KEY);
+    }
+
+    /**
+     * Reports whether all DFDL schemas were compiled successfully. Intended for readiness probes.
+     */
+    public static boolean isReady(final ApplicationContext applicationContext) {
+        final CompletableFuture<Void> warmUpFuture = getWarmUp(applicationContext);
+        return warmUpFuture != null && warmUpFuture.isDone() && !warmUpFuture.isCompletedExceptionally();
+    }
+
+    /**
+     * Concurrently compiles the distinct DFDL schemas of the DFDL resources matching the given filter. Resources
+     * sharing the same DFDL schema are compiled once.
+     *
+     * @return a future which completes once the DFDL schemas are compiled
+     */
+    public static CompletableFuture<Void> compile(final ApplicationContext applicationContext, final Predicate<ResourceConfig> resourceConfigFilter) {
+        final Map<Object, Supplier<DataProcessor>> dataProcessorSuppliers = new LinkedHashMap<>();
+        final List<CompletableFuture<DataProcessor>> dataProcessorFutures = new ArrayList<>();
+        for (ResourceConfig resourceConfig : getDfdlResourceConfigs(applicationContext)) {
+            if (resourceConfigFilter.test(resourceConfig)) {
+                try {
+                    final DataProcessorFactory dataProcessorFactory = newDataProcessorFactory(applicationContext, resourceConfig);
+                    dataProcessorSuppliers.putIfAbsent(getKey(dataProcessorFactory), () -> {
+                        try {
+                            return dataProcessorFactory.createDataProcessor();
+                        } catch (Throwable t) {
+                            LOGGER.warn(String.format("Failed to compile DFDL schema %s ahead of time", dataProcessorFactory.getSchemaUri()), t);
+                            throw t;
+                        }
+                    });
+                } catch (Throwable t) {
+                    dataProcessorFutures.add(failedFuture(t));
+                }
+            }
+        }
+
+        LOGGER.info("Compiling {} distinct DFDL schema/s in the background...", dataProcessorSuppliers.size());
+        final Executor executor = getExecutor(applicationContext);
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        for (Supplier<DataProcessor> dataProcessorSupplier : dataProcessorSuppliers.values()) {
+            dataProcessorFutures.add(CompletableFuture.supplyAsync(() -> {
+                final Thread currentThread = Thread.currentThread();
+                final ClassLoader executorContextClassLoader = currentThread.getContextClassLoader();
+                currentThread.setContextClassLoader(contextClassLoader);
+                try {
+                    return dataProcessorSupplier.get();
+                } finally {
+                    currentThread.setContextClassLoader(executorContextClassLoader);
+                }
+            }, executor));
+        }
+
+        return CompletableFuture.allOf(dataProcessorFutures.toArray(new CompletableFuture[0]));
+    }
+
+    private static Object getKey(final DataProcessorFactory dataProcessorFactory) {
+        try {
+            return Arrays.asList(dataProcessorFactory.getClass(), dataProcessorFactory.createDfdlSchema().getName());
+        } catch (Throwable t) {
+            return dataProcessorFactory;
+        }
+    }
+
+    private static Executor getExecutor(final ApplicationContext applicationContext) {
+        return DaemonPool.getOrCreate(applicationContext, EXECUTOR_TYPED_KEY, COMPILE_PARALLELISM_PARAM, "dfdl-compiler");
+    }
+
+    private static List<ResourceConfig> getDfdlResourceConfigs(final ApplicationContext applicationContext) {
+        final List<ResourceConfig> dfdlResourceConfigs = new ArrayList<>();
+        for (ResourceConfigSeq resourceConfigSeq : applicationContext.getRegistry().lookup(new ResourceConfigSeqsLookup())) {
+            for (ResourceConfig resourceConfig : resourceConfigSeq) {
+                if (resourceConfig.getParameterValue("dataProcessorFactory") != null && resourceConfig.getParameterValue("schemaUri") != null) {
+                    dfdlResourceConfigs.add(resourceConfig);
+                }
+            }
+        }
+
+        return dfdlResourceConfigs;
+    }
+
+    private static DataProcessorFactory newDataProcessorFactory(final ApplicationContext applicationContext, final ResourceConfig resourceConfig) throws ReflectiveOperationException {
+        final String dataProcessorFactoryClassName = resourceConfig.getParameterValue("dataProcessorFactory", String.class);
+        final Class<? extends DataProcessorFactory> dataProcessorFactoryClass = (Class<? extends DataProcessorFactory>) Class.forName(dataProcessorFactoryClassName, true, applicationContext.getClassLoader());
+        final DataProcessorFactory dataProcessorFactory = dataProcessorFactoryClass.newInstance();
+        applicationContext.getRegistry().lookup(new LifecycleManagerLookup()).applyPhase(dataProcessorFactory, new PostConstructLifecyclePhase(new Scope(applicationContext.getRegistry(), resourceConfig, dataProcessorFactory)));
+
+        return dataProcessorFactory;
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(final Throwable throwable) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+}
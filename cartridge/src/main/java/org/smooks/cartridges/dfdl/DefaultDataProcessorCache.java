@@ -0,0 +1,372 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl;
+
+import org.apache.daffodil.japi.DataProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Default {@link DataProcessorCache}. The cache can be bounded by number of entries and/or by total weight, evicting
+ * either the least recently used (LRU) or the least frequently used (LFU) entries once a bound is exceeded. Entries
+ * can also expire after a period without access. Entries which are still loading are neither evicted nor expired.
+ * <p>
+ * Eviction scans the entries under the cache's lock, which is cheap for the hundreds of entries a cache of compiled
+ * DFDL schemas is expected to hold. Compilation takes place outside of the lock.
+ */
+public class DefaultDataProcessorCache implements DataProcessorCache {
+
+    public enum EvictionPolicy {
+        LRU, LFU
+    }
+
+    /**
+     * Weight given to a {@link DataProcessor} which cannot be weighed. It errs on the heavy side so that such entries
+     * still count towards the maximum weight.
+     */
+    public static final long UNKNOWN_WEIGHT = 16L * 1024 * 1024;
+
+    /**
+     * Weighs a {@link DataProcessor} by the number of bytes it takes when saved. The saved size of a compiled DFDL
+     * schema is a fair proxy for the size of its runtime data structures but saving is about as costly as loading so
+     * prefer a {@link Loader#weigh(DataProcessor) loader's estimate} where one is available. A {@link DataProcessor}
+     * which cannot be saved, such as one with a debugger or a validator attached, weighs {@link #UNKNOWN_WEIGHT}.
+     */
+    public static final ToLongFunction<DataProcessor> SAVED_SIZE_WEIGHER = dataProcessor -> {
+        final CountingByteChannel countingByteChannel = new CountingByteChannel();
+        try {
+            dataProcessor.save(countingByteChannel);
+        } catch (Throwable t) {
+            LoggerFactory.getLogger(DefaultDataProcessorCache.class).warn(String.format("Unable to weigh DataProcessor: giving it a weight of %s", UNKNOWN_WEIGHT), t);
+            return UNKNOWN_WEIGHT;
+        }
+        return countingByteChannel.count;
+    };
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultDataProcessorCache.class);
+
+    private final long maxEntries;
+    private final long maxWeight;
+    private final ToLongFunction<DataProcessor> weigher;
+    private final EvictionPolicy evictionPolicy;
+    private final long expireAfterAccess;
+    private final LongSupplier ticker;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Creates an unbounded cache whose entries never expire.
+     */
+    public DefaultDataProcessorCache() {
+        this(Long.MAX_VALUE, Long.MAX_VALUE, dataProcessor -> 1, EvictionPolicy.LRU, null);
+    }
+
+    /**
+     * @param maxEntries        maximum number of entries
+     * @param maxWeight         maximum total weight of the entries
+     * @param weigher           computes the weight of an entry once loaded unless its loader estimates the weight
+     * @param evictionPolicy    selects the entry to evict once a bound is exceeded
+     * @param expireAfterAccess period without access after which an entry expires, or <code>null</code> for no expiry
+     */
+    public DefaultDataProcessorCache(final long maxEntries, final long maxWeight, final ToLongFunction<DataProcessor> weigher, final EvictionPolicy evictionPolicy, final Duration expireAfterAccess) {
+        this(maxEntries, maxWeight, weigher, evictionPolicy, expireAfterAccess, System::nanoTime);
+    }
+
+    DefaultDataProcessorCache(final long maxEntries, final long maxWeight, final ToLongFunction<DataProcessor> weigher, final EvictionPolicy evictionPolicy, final Duration expireAfterAccess, final LongSupplier ticker) {
+        if (maxEntries < 0 || maxWeight < 0) {
+            throw new IllegalArgumentException("Cache bounds must not be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.evictionPolicy = evictionPolicy;
+        this.expireAfterAccess = expireAfterAccess == null ? Long.MAX_VALUE : expireAfterAccess.toNanos();
+        this.ticker = ticker;
+    }
+
+    @Override
+    public DataProcessor get(final String key, final Loader loader) {
+        final Entry entry;
+        final boolean isLoader;
+        synchronized (this) {
+            final long now = ticker.getAsLong();
+            Entry cachedEntry = entries.get(key);
+            if (cachedEntry != null && isExpired(cachedEntry, now)) {
+                remove(key);
+                evictionCount.increment();
+                cachedEntry = null;
+            }
+            if (cachedEntry == null) {
+                entry = new Entry(now);
+                entries.put(key, entry);
+                isLoader = true;
+            } else {
+                entry = cachedEntry;
+                entry.accessTime = now;
+                entry.frequency++;
+                isLoader = false;
+            }
+        }
+
+        if (isLoader) {
+            missCount.increment();
+            load(key, entry, loader);
+        } else {
+            hitCount.increment();
+            LOGGER.debug("Cache hit for key {}", key);
+        }
+
+        try {
+            return entry.dataProcessorFuture.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof DfdlSmooksException ? (DfdlSmooksException) e.getCause() : new DfdlSmooksException(e.getCause());
+        }
+    }
+
+    private void load(final String key, final Entry entry, final Loader loader) {
+        final long startTime = ticker.getAsLong();
+        final DataProcessor dataProcessor;
+        try {
+            dataProcessor = loader.load();
+        } catch (Throwable t) {
+            totalLoadTime.add(ticker.getAsLong() - startTime);
+            loadFailureCount.increment();
+            synchronized (this) {
+                if (entries.get(key) == entry) {
+                    entries.remove(key);
+                }
+            }
+            entry.dataProcessorFuture.completeExceptionally(t);
+            return;
+        }
+        totalLoadTime.add(ticker.getAsLong() - startTime);
+        loadSuccessCount.increment();
+
+        final long estimatedWeight = loader.weigh(dataProcessor);
+        final long weight = estimatedWeight < 0 ? weigher.applyAsLong(dataProcessor) : estimatedWeight;
+        synchronized (this) {
+            if (entries.get(key) == entry) {
+                entry.weight = weight;
+                entry.loaded = true;
+                totalWeight += weight;
+                evict(entry);
+            }
+        }
+        entry.dataProcessorFuture.complete(dataProcessor);
+    }
+
+    @Override
+    public DataProcessor getIfPresent(final String key) {
+        synchronized (this) {
+            final Entry entry = entries.get(key);
+            if (entry == null || !entry.loaded) {
+                return null;
+            }
+            final long now = ticker.getAsLong();
+            if (isExpired(entry, now)) {
+                remove(key);
+                evictionCount.increment();
+                return null;
+            }
+            entry.accessTime = now;
+            entry.frequency++;
+            hitCount.increment();
+
+            return entry.dataProcessorFuture.getNow(null);
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(final String key) {
+        remove(key);
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    @Override
+    public synchronized long size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the total weight of the loaded entries
+     */
+    public synchronized long weight() {
+        return totalWeight;
+    }
+
+    @Override
+    public DataProcessorCacheStats getStats() {
+        return new DataProcessorCacheStats(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(), totalLoadTime.sum(), evictionCount.sum());
+    }
+
+    public long getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    private void evict(final Entry loadedEntry) {
+        final long now = ticker.getAsLong();
+        final Iterator<Map.Entry<String, Entry>> entriesIterator = entries.entrySet().iterator();
+        while (entriesIterator.hasNext()) {
+            final Entry entry = entriesIterator.next().getValue();
+            if (isExpired(entry, now)) {
+                entriesIterator.remove();
+                totalWeight -= entry.weight;
+                evictionCount.increment();
+            }
+        }
+
+        while (entries.size() > maxEntries || totalWeight > maxWeight) {
+            final String victimKey = selectVictim(loadedEntry);
+            if (victimKey == null) {
+                break;
+            }
+            LOGGER.debug("Evicting key {}", victimKey);
+            remove(victimKey);
+            evictionCount.increment();
+        }
+    }
+
+    /**
+     * Iteration follows access order so, for both policies, ties are broken in favour of evicting the least recently
+     * used entry. The entry which was just loaded is only evicted when no other entry can be: otherwise, under LFU, a
+     * new entry would always be the first one evicted.
+     */
+    private String selectVictim(final Entry loadedEntry) {
+        String loadedEntryKey = null;
+        String victimKey = null;
+        long victimFrequency = Long.MAX_VALUE;
+        for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+            final Entry entry = mapEntry.getValue();
+            if (entry == loadedEntry) {
+                loadedEntryKey = mapEntry.getKey();
+            } else if (entry.loaded) {
+                if (evictionPolicy == EvictionPolicy.LRU) {
+                    return mapEntry.getKey();
+                } else if (entry.frequency < victimFrequency) {
+                    victimKey = mapEntry.getKey();
+                    victimFrequency = entry.frequency;
+                }
+            }
+        }
+
+        return victimKey == null ? loadedEntryKey : victimKey;
+    }
+
+    private void remove(final String key) {
+        final Entry entry = entries.remove(key);
+        if (entry != null) {
+            totalWeight -= entry.weight;
+        }
+    }
+
+    private boolean isExpired(final Entry entry, final long now) {
+        return entry.loaded && now - entry.accessTime >= expireAfterAccess;
+    }
+
+    private static class Entry {
+        private final CompletableFuture<DataProcessor> dataProcessorFuture = new CompletableFuture<>();
+        private long accessTime;
+        private long frequency = 1;
+        private long weight;
+        private boolean loaded;
+
+        Entry(final long accessTime) {
+            this.accessTime = accessTime;
+        }
+    }
+
+    private static class CountingByteChannel implements WritableByteChannel {
+        private long count;
+
+        @Override
+        public int write(final ByteBuffer src) {
+            final int remaining = src.remaining();
+            src.position(src.limit());
+            count += remaining;
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+
+        }
+    }
+}
@@ -0,0 +1,458 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.daffodil.japi.Daffodil;
+import org.apache.daffodil.japi.DataProcessor;
+import org.apache.daffodil.japi.Diagnostic;
+import org.apache.daffodil.japi.InvalidParserException;
+import org.apache.daffodil.japi.ProcessorFactory;
+import org.apache.daffodil.japi.ValidationMode;
+import org.apache.daffodil.japi.debugger.TraceDebuggerRunner;
+import org.apache.daffodil.lib.util.Misc;
+import org.apache.daffodil.validation.schematron.SchSource;
+import org.apache.daffodil.validation.schematron.SchematronValidator;
+import org.apache.daffodil.validation.schematron.SchematronValidatorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.cartridges.dfdl.metrics.CompileEvent;
+import org.smooks.cartridges.dfdl.metrics.JfrEvents;
+import org.smooks.resource.URIResourceLocator;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class DfdlSchema {
+
+    public static final String WORKING_DIRECTORY = ".smooks/dfdl-cartridge/";
+    public static final String PRECOMPILED_SCHEMAS_LOCATION = "META-INF/smooks/dfdl-cartridge/";
+    protected static final Logger LOGGER = LoggerFactory.getLogger(DfdlSchema.class);
+    private static final Set<String> SCHEMA_LOCATION_ELEMENTS = new HashSet<>(Arrays.asList("include", "import", "redefine", "override"));
+    private static final Map<String, Object> BIN_SCHEMA_MONITORS = new ConcurrentHashMap<>();
+
+    protected final URI uri;
+    protected final ValidationMode validationMode;
+    protected final boolean cacheOnDisk;
+    protected final boolean debugging;
+    protected final String distinguishedRootNode;
+    private final String schematronUrl;
+    private final boolean schematronValidation;
+    private String fingerprint;
+    private long size;
+    private ClassLoader classLoader;
+
+    public DfdlSchema(final URI uri, final ValidationMode validationMode, final boolean cacheOnDisk,
+                      final boolean debugging, final String distinguishedRootNode, final String schematronUrl,
+                      final boolean schematronValidation) {
+        this.uri = uri;
+        this.validationMode = validationMode;
+        this.cacheOnDisk = cacheOnDisk;
+        this.debugging = debugging;
+        this.distinguishedRootNode = distinguishedRootNode;
+        this.schematronUrl = schematronUrl;
+        this.schematronValidation = schematronValidation;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public ValidationMode getValidationMode() {
+        return validationMode;
+    }
+
+    public boolean isCacheOnDisk() {
+        return cacheOnDisk;
+    }
+
+    public boolean isDebugging() {
+        return debugging;
+    }
+
+    /**
+     * @return the key under which the compiled DFDL schema is shared: schemas differing in any setting which changes the
+     * resulting {@link DataProcessor} have different names
+     */
+    public String getName() {
+        return uri + ":" + validationMode + ":" + cacheOnDisk + ":" + debugging + ":" + distinguishedRootNode + ":" + schematronValidation + ":" + schematronUrl;
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * @param classLoader the class loader searched for a {@link #precompile(Path) pre-compiled} DFDL schema
+     */
+    public void setClassLoader(final ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public DataProcessor compile() throws Throwable {
+        final CompileEvent compileEvent = JfrEvents.isAvailable() ? new CompileEvent() : null;
+        if (compileEvent != null) {
+            compileEvent.begin();
+        }
+        DataProcessor dataProcessor = null;
+        try {
+            dataProcessor = reloadPrecompiled();
+            if (compileEvent != null) {
+                compileEvent.precompiled = dataProcessor != null;
+            }
+            if (dataProcessor == null) {
+                if (cacheOnDisk) {
+                    dataProcessor = compileOrReload();
+                } else {
+                    dataProcessor = compileSource();
+                }
+            }
+        } finally {
+            if (compileEvent != null && compileEvent.shouldCommit()) {
+                compileEvent.schemaUri = uri.toString();
+                compileEvent.distinguishedRootNode = distinguishedRootNode;
+                compileEvent.cacheOnDisk = cacheOnDisk;
+                compileEvent.commit();
+            }
+        }
+
+        if (debugging) {
+            dataProcessor = dataProcessor.withDebuggerRunner(new TraceDebuggerRunner()).withDebugging(true);
+        }
+
+
+        dataProcessor = dataProcessor.withValidationMode(validationMode);
+
+        if (schematronValidation) {
+            final SchematronValidator schematronValidator;
+            URIResourceLocator uriResourceLocator = new URIResourceLocator();
+            if (schematronUrl != null) {
+                InputStream schematronInputStream = uriResourceLocator.getResource(schematronUrl);
+                schematronValidator = SchematronValidatorFactory.makeValidator(schematronInputStream, schematronUrl, new SchSource.Sch$());
+            } else {
+                InputStream schematronInputStream = uriResourceLocator.getResource(uri.toString());
+                schematronValidator = SchematronValidatorFactory.makeValidator(schematronInputStream, uri.toString(), new SchSource.Xsd$());
+            }
+            dataProcessor = dataProcessor.withValidator(schematronValidator);
+        }
+
+        return dataProcessor;
+    }
+
+    /**
+     * Reloads the compiled DFDL schema from the working directory or, when absent or unreadable, compiles the DFDL
+     * schema and saves it in the working directory. The saved file name embeds the {@link #getFingerprint() fingerprint}
+     * so that an edited schema is never served from a stale binary. Compilation is guarded by a file lock to prevent
+     * concurrent JVMs sharing the working directory from compiling the same schema.
+     */
+    protected DataProcessor compileOrReload() throws Throwable {
+        final Path workingDirectory = Paths.get(WORKING_DIRECTORY);
+        final Path binSchemaPath = workingDirectory.resolve(getPrecompiledSchemaName());
+        if (Files.exists(binSchemaPath)) {
+            final DataProcessor dataProcessor = reload(binSchemaPath);
+            if (dataProcessor != null) {
+                return dataProcessor;
+            }
+        }
+
+        Files.createDirectories(workingDirectory);
+        final Object binSchemaMonitor = BIN_SCHEMA_MONITORS.computeIfAbsent(binSchemaPath.toAbsolutePath().toString(), k -> new Object());
+        synchronized (binSchemaMonitor) {
+            try (FileChannel lockFileChannel = FileChannel.open(workingDirectory.resolve(binSchemaPath.getFileName() + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = lockFileChannel.lock()) {
+                if (Files.exists(binSchemaPath)) {
+                    final DataProcessor dataProcessor = reload(binSchemaPath);
+                    if (dataProcessor != null) {
+                        return dataProcessor;
+                    }
+                    Files.deleteIfExists(binSchemaPath);
+                }
+
+                final DataProcessor dataProcessor = compileSource();
+                save(dataProcessor, binSchemaPath);
+
+                return dataProcessor;
+            }
+        }
+    }
+
+    /**
+     * Compiles the DFDL schema ahead of time into <code>outputDirectory</code>, typically a build output directory
+     * mapped to {@link #PRECOMPILED_SCHEMAS_LOCATION} on the classpath. {@link #compile()} then reloads the saved
+     * schema from the classpath instead of compiling it as long as the saved schema's fingerprint matches. The
+     * validation mode, debugging and Schematron settings are applied on reload hence they do not take part in the
+     * saved schema.
+     *
+     * @return the path of the saved schema
+     */
+    public Path precompile(final Path outputDirectory) throws Throwable {
+        final Path binSchemaPath = outputDirectory.resolve(getPrecompiledSchemaName());
+        if (Files.exists(binSchemaPath)) {
+            LOGGER.info("Compiled DFDL schema {} is up to date", binSchemaPath.toAbsolutePath());
+        } else {
+            Files.createDirectories(outputDirectory);
+            save(compileSource(), binSchemaPath);
+        }
+
+        return binSchemaPath;
+    }
+
+    /**
+     * Saves the compiled DFDL schema to a temporary file before moving it into place hence readers never observe a
+     * partially written file.
+     */
+    protected void save(final DataProcessor dataProcessor, final Path binSchemaPath) throws IOException {
+        final Path tempBinSchemaPath = Files.createTempFile(binSchemaPath.getParent(), binSchemaPath.getFileName().toString(), ".tmp");
+        try {
+            try (WritableByteChannel writableByteChannel = Files.newByteChannel(tempBinSchemaPath, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                dataProcessor.save(writableByteChannel);
+            }
+            try {
+                Files.move(tempBinSchemaPath, binSchemaPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempBinSchemaPath, binSchemaPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            LOGGER.info("Saved compiled DFDL schema to {}", binSchemaPath.toAbsolutePath());
+        } finally {
+            Files.deleteIfExists(tempBinSchemaPath);
+        }
+    }
+
+    /**
+     * @return the DFDL schema {@link #precompile(Path) compiled ahead of time} and found on the classpath, or
+     * <code>null</code> when there is none matching the schema's fingerprint
+     */
+    protected DataProcessor reloadPrecompiled() throws IOException {
+        final ClassLoader classLoader = this.classLoader != null ? this.classLoader : Thread.currentThread().getContextClassLoader() != null ? Thread.currentThread().getContextClassLoader() : DfdlSchema.class.getClassLoader();
+        final URL binSchemaUrl = classLoader.getResource(PRECOMPILED_SCHEMAS_LOCATION + getPrecompiledSchemaName());
+        if (binSchemaUrl == null) {
+            return null;
+        }
+
+        LOGGER.info("Loading pre-compiled DFDL schema from {}", binSchemaUrl);
+        try (ReadableByteChannel readableByteChannel = Channels.newChannel(binSchemaUrl.openStream())) {
+            return Daffodil.compiler().reload(readableByteChannel);
+        } catch (InvalidParserException e) {
+            LOGGER.warn(String.format("Discarding unreadable pre-compiled DFDL schema %s", binSchemaUrl), e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the file name of the saved schema, which embeds the {@link #getFingerprint() fingerprint}
+     */
+    public String getPrecompiledSchemaName() throws IOException {
+        return getBaseName() + "-" + getFingerprint() + ".dat";
+    }
+
+    protected DataProcessor reload(final Path binSchemaPath) {
+        LOGGER.info("Loading compiled DFDL schema from {}", binSchemaPath.toAbsolutePath());
+        try {
+            return Daffodil.compiler().reload(binSchemaPath.toFile());
+        } catch (InvalidParserException e) {
+            LOGGER.warn(String.format("Discarding unreadable compiled DFDL schema %s", binSchemaPath.toAbsolutePath()), e);
+            return null;
+        }
+    }
+
+    /**
+     * Computes a SHA-256 digest from the Daffodil version, the distinguished root node, and the content of the DFDL
+     * schema together with the content of every schema it transitively includes or imports. Schema locations do not
+     * contribute to the digest which means that a compiled schema can be shared across hosts and class loaders.
+     */
+    public String getFingerprint() throws IOException {
+        if (fingerprint == null) {
+            final MessageDigest messageDigest;
+            try {
+                messageDigest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new DfdlSmooksException(e);
+            }
+            messageDigest.update(Misc.getDaffodilVersion().getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+            if (distinguishedRootNode != null) {
+                messageDigest.update(distinguishedRootNode.getBytes(StandardCharsets.UTF_8));
+            }
+            messageDigest.update((byte) 0);
+            size = 0;
+            digestSchema(uri.toURL(), messageDigest, new HashSet<>());
+
+            final StringBuilder fingerprintStringBuilder = new StringBuilder();
+            for (byte b : messageDigest.digest()) {
+                fingerprintStringBuilder.append(String.format("%02x", b));
+            }
+            fingerprint = fingerprintStringBuilder.toString();
+        }
+
+        return fingerprint;
+    }
+
+    /**
+     * @return the number of bytes of the DFDL schema together with the schemas it transitively includes or imports. The
+     * size is worked out alongside the {@link #getFingerprint() fingerprint}.
+     */
+    public long getSize() throws IOException {
+        getFingerprint();
+        return size;
+    }
+
+    protected void digestSchema(final URL schemaUrl, final MessageDigest messageDigest, final Set<String> visitedSchemaUrls) throws IOException {
+        if (!visitedSchemaUrls.add(schemaUrl.toExternalForm())) {
+            return;
+        }
+
+        final byte[] schema;
+        try (InputStream schemaInputStream = schemaUrl.openStream()) {
+            schema = IOUtils.toByteArray(schemaInputStream);
+        }
+        messageDigest.update(schema);
+        size += schema.length;
+
+        for (String schemaLocation : getSchemaLocations(schema, schemaUrl)) {
+            messageDigest.update(schemaLocation.getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+            final URL schemaLocationUrl = resolveSchemaLocation(schemaUrl, schemaLocation);
+            if (schemaLocationUrl == null) {
+                LOGGER.debug("Unable to resolve schema location {} from {}", schemaLocation, schemaUrl);
+            } else {
+                digestSchema(schemaLocationUrl, messageDigest, visitedSchemaUrls);
+            }
+        }
+    }
+
+    protected List<String> getSchemaLocations(final byte[] schema, final URL schemaUrl) throws IOException {
+        final List<String> schemaLocations = new ArrayList<>();
+        try {
+            final SAXParserFactory saxParserFactory = SAXParserFactory.newInstance();
+            saxParserFactory.setNamespaceAware(true);
+            saxParserFactory.newSAXParser().parse(new ByteArrayInputStream(schema), new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(uri) && SCHEMA_LOCATION_ELEMENTS.contains(localName)) {
+                        final String schemaLocation = attributes.getValue("schemaLocation");
+                        if (schemaLocation != null) {
+                            schemaLocations.add(schemaLocation.trim());
+                        }
+                    }
+                }
+            });
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException(String.format("Unable to read schema locations from %s", schemaUrl), e);
+        }
+
+        return schemaLocations;
+    }
+
+    protected URL resolveSchemaLocation(final URL schemaUrl, final String schemaLocation) {
+        try {
+            final URL schemaLocationUrl = new URL(schemaUrl, schemaLocation);
+            try (InputStream ignored = schemaLocationUrl.openStream()) {
+                return schemaLocationUrl;
+            }
+        } catch (IOException e) {
+            final String resourceName = schemaLocation.startsWith("/") ? schemaLocation.substring(1) : schemaLocation;
+            final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+            final URL resource = contextClassLoader != null ? contextClassLoader.getResource(resourceName) : null;
+            return resource != null ? resource : DfdlSchema.class.getClassLoader().getResource(resourceName);
+        }
+    }
+
+    protected String getBaseName() {
+        final String path = uri.getPath() != null ? uri.getPath() : uri.getSchemeSpecificPart();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    protected DataProcessor compileSource() throws Throwable {
+        final org.apache.daffodil.japi.Compiler compiler = Daffodil.compiler();
+        final ProcessorFactory processorFactory;
+        if (distinguishedRootNode != null) {
+            processorFactory = compiler.compileSource(uri, distinguishedRootNode.substring(distinguishedRootNode.indexOf("}") + 1), distinguishedRootNode.substring(distinguishedRootNode.indexOf("{") + 1, distinguishedRootNode.indexOf("}")));
+        } else {
+            processorFactory = compiler.compileSource(uri);
+        }
+
+        if (processorFactory.isError()) {
+            final List<Diagnostic> diagnostics = processorFactory.getDiagnostics();
+            throw diagnostics.get(0).getSomeCause();
+        }
+        final DataProcessor dataProcessor = processorFactory.onPath("/");
+        if (dataProcessor.isError()) {
+            final List<Diagnostic> diagnostics = dataProcessor.getDiagnostics();
+            for (Diagnostic diagnostic : diagnostics) {
+                throw diagnostic.getSomeCause();
+            }
+        }
+
+        return dataProcessor;
+    }
+}
@@ -0,0 +1,167 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl;
+
+import org.apache.daffodil.japi.DataProcessor;
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.TypedKey;
+import org.smooks.api.resource.config.Parameter;
+import org.smooks.api.resource.config.ResourceConfig;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * DFDL variables whose values are resolved, message by message, from the {@link ExecutionContext}: either from a bean
+ * in the bean context (<code>beanId</code> attribute of <code>dfdl:variable</code>) or from a typed key
+ * (<code>typedKey</code> attribute of <code>dfdl:variable</code>).
+ * <p>
+ * Binding variables copies the {@link DataProcessor}. The copies are therefore memoized in a bounded, least recently
+ * used, cache keyed by the resolved variables so that messages resolving to the same variables share the same copy.
+ */
+public class DynamicVariables {
+
+    public static final String BEAN_VARIABLES_PARAM = "beanVariables";
+    public static final String TYPED_KEY_VARIABLES_PARAM = "typedKeyVariables";
+    public static final String CACHE_SIZE_PARAM = "variablesCacheSize";
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    private final List<Map.Entry<String, String>> beanVariables;
+    private final List<Map.Entry<String, TypedKey<Object>>> typedKeyVariables;
+    private final Map<Map<String, String>, DataProcessor> dataProcessors;
+
+    public DynamicVariables(final ResourceConfig resourceConfig) {
+        this(resourceConfig, resourceConfig == null ? DEFAULT_CACHE_SIZE : Integer.parseInt(resourceConfig.getParameterValue(CACHE_SIZE_PARAM, String.class, String.valueOf(DEFAULT_CACHE_SIZE)).trim()));
+    }
+
+    public DynamicVariables(final ResourceConfig resourceConfig, final int cacheSize) {
+        beanVariables = getVariables(resourceConfig, BEAN_VARIABLES_PARAM);
+        typedKeyVariables = new ArrayList<>();
+        for (Map.Entry<String, String> typedKeyVariable : getVariables(resourceConfig, TYPED_KEY_VARIABLES_PARAM)) {
+            typedKeyVariables.add(new AbstractMap.SimpleEntry<>(typedKeyVariable.getKey(), TypedKey.of(typedKeyVariable.getValue())));
+        }
+        dataProcessors = new LinkedHashMap<Map<String, String>, DataProcessor>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Map<String, String>, DataProcessor> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    private static List<Map.Entry<String, String>> getVariables(final ResourceConfig resourceConfig, final String name) {
+        final List<Parameter<?>> variablesParameters = resourceConfig == null ? null : resourceConfig.getParameters(name);
+        if (variablesParameters == null) {
+            return Collections.emptyList();
+        }
+        final List<Map.Entry<String, String>> variables = new ArrayList<>();
+        for (Parameter<?> variablesParameter : variablesParameters) {
+            variables.add((Map.Entry<String, String>) variablesParameter.getValue());
+        }
+
+        return variables;
+    }
+
+    /**
+     * Resolves the variables of the message. A variable whose bean or typed key is absent is left unset so that it
+     * keeps the value it was bound to on construction.
+     *
+     * @param overrides variables supplied as is by the message, which take precedence over resolved variables. May be
+     *                  <code>null</code>.
+     * @return the message's variables, or <code>null</code> when the message has none
+     */
+    public Map<String, String> resolve(final ExecutionContext executionContext, final Map<String, String> overrides) {
+        if (beanVariables.isEmpty() && typedKeyVariables.isEmpty()) {
+            return overrides;
+        }
+
+        final Map<String, String> variables = new HashMap<>();
+        for (Map.Entry<String, String> beanVariable : beanVariables) {
+            final Object bean = executionContext.getBeanContext().getBean(beanVariable.getValue());
+            if (bean != null) {
+                variables.put(beanVariable.getKey(), bean.toString());
+            }
+        }
+        for (Map.Entry<String, TypedKey<Object>> typedKeyVariable : typedKeyVariables) {
+            final Object value = executionContext.get(typedKeyVariable.getValue());
+            if (value != null) {
+                variables.put(typedKeyVariable.getKey(), value.toString());
+            }
+        }
+        if (overrides != null) {
+            variables.putAll(overrides);
+        }
+
+        return variables.isEmpty() ? null : variables;
+    }
+
+    /**
+     * Gets the {@link DataProcessor} bound to the given variables from the cache or binds it with the given binder.
+     */
+    public DataProcessor bind(final Map<String, String> variables, final Function<Map<String, String>, DataProcessor> binder) {
+        DataProcessor dataProcessor;
+        synchronized (dataProcessors) {
+            dataProcessor = dataProcessors.get(variables);
+        }
+        if (dataProcessor == null) {
+            final Map<String, String> key = new HashMap<>(variables);
+            dataProcessor = binder.apply(key);
+            synchronized (dataProcessors) {
+                dataProcessors.put(key, dataProcessor);
+            }
+        }
+
+        return dataProcessor;
+    }
+
+    public int size() {
+        synchronized (dataProcessors) {
+            return dataProcessors.size();
+        }
+    }
+}
@@ -43,6 +43,7 @@
 package org.smooks.cartridges.dfdl;
 
 import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksConfigException;
 import org.smooks.api.SmooksException;
 import org.smooks.api.resource.config.ResourceConfig;
 import org.smooks.api.resource.visitor.dom.DOMVisitBefore;
@@ -53,6 +54,10 @@ import org.w3c.dom.Element;
 
 import javax.inject.Inject;
 import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class MapToResourceConfigFromKeyValueAttributes implements DOMVisitBefore {
 
@@ -65,7 +70,19 @@ public class MapToResourceConfigFromKeyValueAttributes implements DOMVisitBefore
     @Inject
     protected String valueAttribute;
 
+    /**
+     * Comma-separated attributes of which the element must carry exactly one.
+     */
+    @Inject
+    protected Optional<String> exclusiveAttributes = Optional.empty();
+
     public void visitBefore(Element element, ExecutionContext executionContext) throws SmooksException {
+        if (exclusiveAttributes.isPresent()) {
+            assertExactlyOneOf(element, exclusiveAttributes.get().split("\\s*,\\s*"));
+        }
+        if (!element.hasAttribute(valueAttribute)) {
+            return;
+        }
         final ResourceConfig resourceConfig = executionContext.get(ExtensionContext.EXTENSION_CONTEXT_TYPED_KEY).getResourceStack().peek();
         final String key = DomUtils.getAttributeValue(element, keyAttribute);
         final String value = DomUtils.getAttributeValue(element, valueAttribute);
@@ -73,6 +90,14 @@ public class MapToResourceConfigFromKeyValueAttributes implements DOMVisitBefore
         resourceConfig.setParameter(new DefaultParameter<>(mapTo, new AbstractMap.SimpleEntry<>(key, value)));
     }
 
+    protected void assertExactlyOneOf(final Element element, final String[] attributes) {
+        final List<String> present = Arrays.stream(attributes).filter(element::hasAttribute).collect(Collectors.toList());
+        if (present.size() != 1) {
+            throw new SmooksConfigException(String.format("Variable [%s] must have exactly one of the attributes [%s] but has %s",
+                    DomUtils.getAttributeValue(element, keyAttribute), String.join(", ", attributes), present.isEmpty() ? "none" : present));
+        }
+    }
+
     public String getMapTo() {
         return mapTo;
     }
@@ -96,4 +121,12 @@ public class MapToResourceConfigFromKeyValueAttributes implements DOMVisitBefore
     public void setValueAttribute(String valueAttribute) {
         this.valueAttribute = valueAttribute;
     }
+
+    public Optional<String> getExclusiveAttributes() {
+        return exclusiveAttributes;
+    }
+
+    public void setExclusiveAttributes(Optional<String> exclusiveAttributes) {
+        this.exclusiveAttributes = exclusiveAttributes;
+    }
 }
@@ -0,0 +1,102 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.metrics;
+
+import org.apache.daffodil.japi.Diagnostic;
+import org.smooks.api.ApplicationContext;
+
+/**
+ * Instrumentation SPI notified of the work done by <code>dfdl:parser</code> and <code>dfdl:unparser</code>. Measurements
+ * are keyed by the <code>schemaUri</code> of the resource so that they can be told apart per message type.
+ * Implementations must be thread-safe. Register an implementation in the Smooks registry under
+ * <code>DfdlMetrics.class</code> to enable it:
+ *
+ * <pre>
+ * smooks.getApplicationContext().getRegistry().registerObject(DfdlMetrics.class, new HistogramDfdlMetrics());
+ * </pre>
+ */
+public interface DfdlMetrics {
+
+    DfdlMetrics NO_OP = new NoOpDfdlMetrics();
+
+    /**
+     * @param durationNanos the time taken to compile, or reload, the DFDL schema
+     */
+    void recordCompile(String schemaUri, long durationNanos);
+
+    /**
+     * @param durationNanos the time taken to parse the message
+     * @param bytesIn       the number of bytes parsed from the message
+     * @param records       the number of records parsed from the message
+     */
+    void recordParse(String schemaUri, long durationNanos, long bytesIn, long records);
+
+    /**
+     * @param durationNanos the time taken to unparse the fragment, from its start to its end
+     * @param bytesOut      the number of bytes unparsed from the fragment
+     */
+    void recordUnparse(String schemaUri, long durationNanos, long bytesOut);
+
+    /**
+     * Called for every diagnostic reported by Daffodil while parsing or unparsing.
+     */
+    void recordDiagnostic(String schemaUri, Diagnostic diagnostic);
+
+    /**
+     * @return <code>false</code> to let callers skip taking measurements altogether
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * @return the metrics registered in the application context's registry or {@link #NO_OP} when there are none
+     */
+    static DfdlMetrics lookup(final ApplicationContext applicationContext) {
+        if (applicationContext == null) {
+            return NO_OP;
+        }
+        final DfdlMetrics dfdlMetrics = applicationContext.getRegistry().lookup(DfdlMetrics.class);
+        return dfdlMetrics == null ? NO_OP : dfdlMetrics;
+    }
+}
@@ -0,0 +1,161 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe histogram of non-negative values with a fixed memory footprint. Like an HDR histogram, values are
+ * counted in buckets whose width grows with the magnitude of the values such that any recorded value is reported
+ * within a relative error of <code>1 / 2^(precision - 1)</code>, whatever its magnitude.
+ */
+public class Histogram {
+
+    public static final int DEFAULT_PRECISION = 7;
+
+    private final int precision;
+    private final int subBucketCount;
+    private final int subBucketHalfCount;
+    private final AtomicLongArray counts;
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+
+    public Histogram() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision the number of significant bits kept from a value, between 2 and 16
+     */
+    public Histogram(final int precision) {
+        if (precision < 2 || precision > 16) {
+            throw new IllegalArgumentException(String.format("Invalid precision [%s]", precision));
+        }
+        this.precision = precision;
+        subBucketCount = 1 << precision;
+        subBucketHalfCount = subBucketCount / 2;
+        counts = new AtomicLongArray(subBucketCount + (64 - precision) * subBucketHalfCount);
+    }
+
+    public void record(final long value) {
+        final long nonNegativeValue = Math.max(value, 0);
+        counts.incrementAndGet(indexOf(nonNegativeValue));
+        totalCount.increment();
+        sum.add(nonNegativeValue);
+        min.accumulateAndGet(nonNegativeValue, Math::min);
+        max.accumulateAndGet(nonNegativeValue, Math::max);
+    }
+
+    /**
+     * Values below <code>2^precision</code> have a bucket of their own. Above, each power of two is split into
+     * <code>2^(precision - 1)</code> buckets of equal width.
+     */
+    protected int indexOf(final long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - (precision - 1);
+        return subBucketCount + (shift - 1) * subBucketHalfCount + (int) (value >>> shift) - subBucketHalfCount;
+    }
+
+    /**
+     * @return the highest value counted in the bucket at <code>index</code>
+     */
+    protected long highestValueOf(final int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        final int shift = (index - subBucketCount) / subBucketHalfCount + 1;
+        final long subBucket = (index - subBucketCount) % subBucketHalfCount + subBucketHalfCount;
+        return (subBucket << shift) + (1L << shift) - 1;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the value at or below which <code>percentile</code> percent of the recorded values fall, or 0 when no
+     * values are recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final long totalCount = getCount();
+        if (totalCount == 0) {
+            return 0;
+        }
+        final long countAtPercentile = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * totalCount));
+        long cumulativeCount = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            cumulativeCount += counts.get(i);
+            if (cumulativeCount >= countAtPercentile) {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getMin() {
+        return getCount() == 0 ? 0 : min.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        final long totalCount = getCount();
+        return totalCount == 0 ? 0 : (double) sum.sum() / totalCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, min=%d, p50=%d, p90=%d, p99=%d, p99.9=%d, max=%d, mean=%.2f", getCount(), getMin(),
+                getValueAtPercentile(50), getValueAtPercentile(90), getValueAtPercentile(99), getValueAtPercentile(99.9), getMax(), getMean());
+    }
+}
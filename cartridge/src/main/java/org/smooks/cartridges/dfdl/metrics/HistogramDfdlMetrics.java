@@ -0,0 +1,152 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.metrics;
+
+import org.apache.daffodil.japi.Diagnostic;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link DfdlMetrics} keeping, in memory, a {@link Histogram} of latencies and a few counters per DFDL schema.
+ * Latencies are recorded in nanoseconds.
+ */
+public class HistogramDfdlMetrics implements DfdlMetrics {
+
+    private final Map<String, SchemaMetrics> schemaMetrics = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordCompile(final String schemaUri, final long durationNanos) {
+        getOrCreateSchemaMetrics(schemaUri).compileLatency.record(durationNanos);
+    }
+
+    @Override
+    public void recordParse(final String schemaUri, final long durationNanos, final long bytesIn, final long records) {
+        final SchemaMetrics schemaMetrics = getOrCreateSchemaMetrics(schemaUri);
+        schemaMetrics.parseLatency.record(durationNanos);
+        schemaMetrics.recordsPerMessage.record(records);
+        schemaMetrics.bytesIn.add(bytesIn);
+    }
+
+    @Override
+    public void recordUnparse(final String schemaUri, final long durationNanos, final long bytesOut) {
+        final SchemaMetrics schemaMetrics = getOrCreateSchemaMetrics(schemaUri);
+        schemaMetrics.unparseLatency.record(durationNanos);
+        schemaMetrics.bytesOut.add(bytesOut);
+    }
+
+    @Override
+    public void recordDiagnostic(final String schemaUri, final Diagnostic diagnostic) {
+        final SchemaMetrics schemaMetrics = getOrCreateSchemaMetrics(schemaUri);
+        if (diagnostic.isError()) {
+            schemaMetrics.errorDiagnostics.increment();
+        } else {
+            schemaMetrics.warningDiagnostics.increment();
+        }
+    }
+
+    /**
+     * Measurements of a visitor built without a <code>schemaUri</code> are kept under an empty schema URI.
+     */
+    protected SchemaMetrics getOrCreateSchemaMetrics(final String schemaUri) {
+        final String key = schemaUri == null ? "" : schemaUri;
+        final SchemaMetrics existingSchemaMetrics = schemaMetrics.get(key);
+        return existingSchemaMetrics != null ? existingSchemaMetrics : schemaMetrics.computeIfAbsent(key, k -> new SchemaMetrics());
+    }
+
+    /**
+     * @return the metrics of the DFDL schema or <code>null</code> when nothing was recorded for it
+     */
+    public SchemaMetrics getSchemaMetrics(final String schemaUri) {
+        return schemaMetrics.get(schemaUri);
+    }
+
+    public Map<String, SchemaMetrics> getSchemaMetrics() {
+        return Collections.unmodifiableMap(schemaMetrics);
+    }
+
+    public static class SchemaMetrics {
+        private final Histogram compileLatency = new Histogram();
+        private final Histogram parseLatency = new Histogram();
+        private final Histogram unparseLatency = new Histogram();
+        private final Histogram recordsPerMessage = new Histogram();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder errorDiagnostics = new LongAdder();
+        private final LongAdder warningDiagnostics = new LongAdder();
+
+        public Histogram getCompileLatency() {
+            return compileLatency;
+        }
+
+        public Histogram getParseLatency() {
+            return parseLatency;
+        }
+
+        public Histogram getUnparseLatency() {
+            return unparseLatency;
+        }
+
+        public Histogram getRecordsPerMessage() {
+            return recordsPerMessage;
+        }
+
+        public long getBytesIn() {
+            return bytesIn.sum();
+        }
+
+        public long getBytesOut() {
+            return bytesOut.sum();
+        }
+
+        public long getErrorDiagnostics() {
+            return errorDiagnostics.sum();
+        }
+
+        public long getWarningDiagnostics() {
+            return warningDiagnostics.sum();
+        }
+    }
+}
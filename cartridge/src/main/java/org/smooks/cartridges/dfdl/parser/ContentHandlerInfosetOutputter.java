@@ -0,0 +1,343 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 - 2021 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.parser;
+
+import org.apache.daffodil.japi.infoset.InfosetOutputter;
+import org.apache.daffodil.runtime1.api.InfosetArray;
+import org.apache.daffodil.runtime1.api.InfosetComplexElement;
+import org.apache.daffodil.runtime1.api.ElementMetadata;
+import org.apache.daffodil.runtime1.api.InfosetElement;
+import org.apache.daffodil.runtime1.api.InfosetSimpleElement;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import scala.xml.NamespaceBinding;
+
+import javax.xml.XMLConstants;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static javax.xml.XMLConstants.NULL_NS_URI;
+import static javax.xml.XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI;
+import static javax.xml.XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+
+class ContentHandlerInfosetOutputter extends InfosetOutputter {
+    protected static final String RECORD_ERROR_NAMESPACE = "https://www.smooks.org/xsd/smooks/dfdl-1.0.xsd";
+    protected static final String RECORD_ERROR_PREFIX = "dfdl";
+    protected static final String RECORD_ERROR_ELEMENT = "recordError";
+    protected static final int MAX_RETAINED_CHARACTERS_LENGTH = 64 * 1024;
+    protected static final Attributes EMPTY_ATTRIBUTES = new AttributesImpl();
+    protected static final char[] INDENT = "\n\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t".toCharArray();
+
+    protected ContentHandler contentHandler;
+    protected boolean indent;
+    protected int elementLevel = 0;
+    protected int recordLevel = 0;
+    protected final NamespaceScopeStack namespaceBindings = new NamespaceScopeStack();
+    protected Throwable contentHandlerThrowable;
+    protected final AttributesImpl attributes = new AttributesImpl();
+    protected final Map<ElementMetadata, ElementNames> elementNames = new IdentityHashMap<>();
+    protected char[] characters = new char[128];
+
+    ContentHandlerInfosetOutputter(ContentHandler contentHandler, boolean indent) {
+        this.contentHandler = contentHandler;
+        this.indent = indent;
+    }
+
+    /**
+     * Forgets the document being output so that this outputter can be reused for the next record. The element names
+     * and the character buffer are kept since they do not depend on the document.
+     */
+    @Override
+    public void reset() {
+        elementLevel = recordLevel;
+        namespaceBindings.clear();
+        attributes.clear();
+        contentHandlerThrowable = null;
+    }
+
+    public void setContentHandler(ContentHandler contentHandler) {
+        this.contentHandler = contentHandler;
+    }
+
+    public void setIndent(boolean indent) {
+        this.indent = indent;
+    }
+
+    /**
+     * Opens a single document, and its root element, enclosing every record output until
+     * {@link #endRecords(String)}. Records are then output as children of the root element rather than as documents.
+     */
+    public void startRecords(String rootElementName) throws SAXException {
+        contentHandler.startDocument();
+        indent(0);
+        contentHandler.startElement(NULL_NS_URI, rootElementName, rootElementName, EMPTY_ATTRIBUTES);
+        recordLevel = 1;
+        elementLevel = recordLevel;
+    }
+
+    public void endRecords(String rootElementName) throws SAXException {
+        recordLevel = 0;
+        elementLevel = recordLevel;
+        indent(0);
+        contentHandler.endElement(NULL_NS_URI, rootElementName, rootElementName);
+        contentHandler.endDocument();
+    }
+
+    /**
+     * Outputs, in place of a record which failed to parse, a <code>dfdl:recordError</code> element carrying the record's
+     * index, its byte range within the input (end exclusive), and the error message.
+     */
+    public void recordError(long recordIndex, long startByte, long endByte, String message) throws SAXException {
+        if (recordLevel == 0) {
+            contentHandler.startDocument();
+        }
+        final AttributesImpl recordErrorAttributes = new AttributesImpl();
+        recordErrorAttributes.addAttribute(XMLNS_ATTRIBUTE_NS_URI, RECORD_ERROR_PREFIX, XMLConstants.XMLNS_ATTRIBUTE + ":" + RECORD_ERROR_PREFIX, "CDATA", RECORD_ERROR_NAMESPACE);
+        recordErrorAttributes.addAttribute(NULL_NS_URI, "index", "index", "CDATA", Long.toString(recordIndex));
+        recordErrorAttributes.addAttribute(NULL_NS_URI, "start", "start", "CDATA", Long.toString(startByte));
+        recordErrorAttributes.addAttribute(NULL_NS_URI, "end", "end", "CDATA", Long.toString(endByte));
+        indent(recordLevel);
+        contentHandler.startElement(RECORD_ERROR_NAMESPACE, RECORD_ERROR_ELEMENT, RECORD_ERROR_PREFIX + ":" + RECORD_ERROR_ELEMENT, recordErrorAttributes);
+        characters(message);
+        contentHandler.endElement(RECORD_ERROR_NAMESPACE, RECORD_ERROR_ELEMENT, RECORD_ERROR_PREFIX + ":" + RECORD_ERROR_ELEMENT);
+        if (recordLevel == 0) {
+            contentHandler.endDocument();
+        }
+    }
+
+    public void setRecordLevel(int recordLevel) {
+        this.recordLevel = recordLevel;
+    }
+
+    @Override
+    public void startDocument() {
+        if (recordLevel > 0) {
+            return;
+        }
+        try {
+            contentHandler.startDocument();
+        } catch (Throwable e) {
+            throw abort(e);
+        }
+    }
+
+    @Override
+    public void endDocument() {
+        if (recordLevel > 0) {
+            return;
+        }
+        try {
+            contentHandler.endDocument();
+        } catch (Throwable e) {
+            throw abort(e);
+        }
+    }
+
+    @Override
+    public void startSimple(InfosetSimpleElement simple) {
+        try {
+            final ElementNames names = getElementNames(simple);
+            final AttributesImpl attributes = createAttributes(simple);
+            if (simple.isNilled()) {
+                attributes.addAttribute(XMLNS_ATTRIBUTE_NS_URI, "xsi", "xmlns:xsi", "NMTOKEN", "http://www.w3.org/2001/XMLSchema-instance");
+                attributes.addAttribute(W3C_XML_SCHEMA_INSTANCE_NS_URI, "nil", "xsi:nil", "NMTOKEN", "true");
+            }
+            indent(elementLevel);
+            contentHandler.startElement(names.namespaceUri, names.localName, names.qName, attributes);
+            if (!simple.isNilled()) {
+                characters(simple.getText());
+            }
+        } catch (Throwable e) {
+            throw abort(e);
+        }
+    }
+
+    @Override
+    public void endSimple(InfosetSimpleElement simple) {
+        try {
+            final ElementNames names = getElementNames(simple);
+            if (names.namespaceBinding != null) {
+                namespaceBindings.pop();
+            }
+            contentHandler.endElement(names.namespaceUri, names.localName, names.qName);
+        } catch (Throwable e) {
+            throw abort(e);
+        }
+    }
+
+    @Override
+    public void startComplex(InfosetComplexElement complex) {
+        try {
+            indent(elementLevel);
+            final ElementNames names = getElementNames(complex);
+            contentHandler.startElement(names.namespaceUri, names.localName, names.qName, createAttributes(complex));
+            elementLevel++;
+            if (complex.isNilled()) {
+                elementLevel--;
+                if (names.namespaceBinding != null) {
+                    namespaceBindings.pop();
+                }
+                contentHandler.endElement(names.namespaceUri, names.localName, names.qName);
+            }
+        } catch (Throwable e) {
+            throw abort(e);
+        }
+    }
+
+    /**
+     * Clears and fills the attributes shared by all elements. The returned attributes are only valid until the next
+     * element is started which, as per the {@link ContentHandler#startElement} contract, is long enough.
+     */
+    protected AttributesImpl createAttributes(InfosetElement infosetElement) {
+        attributes.clear();
+        final ElementNames names = getElementNames(infosetElement);
+        if (names.namespaceBinding != null) {
+            if (namespaceBindings.push(names.namespaceBinding)) {
+                attributes.addAttribute(XMLNS_ATTRIBUTE_NS_URI, names.namespaceBinding.prefix(), names.xmlnsQName, "CDATA", names.namespaceBinding.uri());
+            }
+        }
+        return attributes;
+    }
+
+    @Override
+    public void endComplex(InfosetComplexElement complex) {
+        try {
+            elementLevel--;
+            indent(elementLevel);
+            final ElementNames names = getElementNames(complex);
+            if (names.namespaceBinding != null) {
+                namespaceBindings.pop();
+            }
+            contentHandler.endElement(complex.metadata().namespace(), names.localName, names.qName);
+        } catch (Throwable e) {
+            throw abort(e);
+        }
+    }
+
+    @Override
+    public void startArray(InfosetArray array) {
+    }
+
+    @Override
+    public void endArray(InfosetArray array) {
+    }
+
+    /**
+     * Gets the names of the element from a cache keyed by the element's metadata, which Daffodil shares between all
+     * occurrences of the element, so that names are computed once per element declaration instead of per event.
+     */
+    protected ElementNames getElementNames(InfosetElement infosetElement) {
+        final ElementMetadata elementMetadata = infosetElement.metadata();
+        ElementNames names = elementNames.get(elementMetadata);
+        if (names == null) {
+            names = new ElementNames(getNamespaceUri(infosetElement), elementMetadata.name(), getQName(infosetElement), elementMetadata.prefix() == null ? null : namespaceBindings.canonicalize(elementMetadata.minimizedScope()));
+            elementNames.put(elementMetadata, names);
+        }
+        return names;
+    }
+
+    protected String getQName(InfosetElement infosetElement) {
+        final String prefix = infosetElement.metadata().prefix();
+        return (prefix == null || prefix.isEmpty()) ? "" : prefix + ":" + infosetElement.metadata().name();
+    }
+
+    /**
+     * Emits the text through a reused buffer rather than a fresh copy per value. The buffer grows to fit the largest
+     * value up to {@link #MAX_RETAINED_CHARACTERS_LENGTH}: larger values are copied into a throwaway buffer so that one
+     * exceptionally large value does not pin memory for the outputter's lifetime.
+     */
+    protected void characters(String text) throws SAXException {
+        final int length = text.length();
+        char[] buffer = characters;
+        if (length > buffer.length) {
+            buffer = new char[Math.max(length, Math.min(buffer.length * 2, MAX_RETAINED_CHARACTERS_LENGTH))];
+            if (buffer.length <= MAX_RETAINED_CHARACTERS_LENGTH) {
+                characters = buffer;
+            }
+        }
+        text.getChars(0, length, buffer, 0);
+        contentHandler.characters(buffer, 0, length);
+    }
+
+    protected void indent(int elementLevel) throws SAXException {
+        if (indent) {
+            contentHandler.characters(INDENT, 0, elementLevel + 1);
+        }
+    }
+
+    protected String getNamespaceUri(InfosetElement infosetElement) {
+        return infosetElement.metadata().namespace() == null ? NULL_NS_URI : infosetElement.metadata().namespace();
+    }
+
+    /**
+     * Remembers the failure of the content handler and aborts the parse. The returned exception only unwinds Daffodil,
+     * the failure being rethrown by the parser, so it is created without a stack trace.
+     */
+    protected ParserDfdlSmooksException abort(Throwable contentHandlerThrowable) {
+        this.contentHandlerThrowable = contentHandlerThrowable;
+        return new StacklessParserDfdlSmooksException(contentHandlerThrowable.getMessage(), contentHandlerThrowable);
+    }
+
+    public Throwable getContentHandlerThrowable() {
+        return contentHandlerThrowable;
+    }
+
+    protected static class ElementNames {
+        protected final String namespaceUri;
+        protected final String localName;
+        protected final String qName;
+        protected final NamespaceBinding namespaceBinding;
+        protected final String xmlnsQName;
+
+        protected ElementNames(String namespaceUri, String localName, String qName, NamespaceBinding namespaceBinding) {
+            this.namespaceUri = namespaceUri;
+            this.localName = localName;
+            this.qName = qName;
+            this.namespaceBinding = namespaceBinding;
+            this.xmlnsQName = namespaceBinding == null ? null : XMLConstants.XMLNS_ATTRIBUTE + ":" + namespaceBinding.prefix();
+        }
+    }
+}
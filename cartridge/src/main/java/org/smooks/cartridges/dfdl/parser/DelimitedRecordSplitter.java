@@ -0,0 +1,127 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.parser;
+
+import org.smooks.assertion.AssertArgument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits an input on a delimiter, such as a newline. The delimiter is kept at the end of its record. Trailing bytes not
+ * followed by a delimiter make up the last record.
+ */
+public class DelimitedRecordSplitter implements RecordSplitter {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final byte[] delimiter;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkPosition;
+    private int chunkLimit;
+    private byte[] record = new byte[1024];
+
+    public DelimitedRecordSplitter(byte[] delimiter) {
+        AssertArgument.isNotNull(delimiter, "delimiter");
+        if (delimiter.length == 0) {
+            throw new IllegalArgumentException("Empty 'delimiter' argument in method call.");
+        }
+        this.delimiter = delimiter.clone();
+    }
+
+    /**
+     * Reads the input a chunk at a time, rather than a byte at a time, and scans the chunk for the delimiter. The bytes
+     * read past the end of the record are kept for the next call.
+     */
+    @Override
+    public byte[] next(InputStream inputStream) throws IOException {
+        final byte lastDelimiterByte = delimiter[delimiter.length - 1];
+        int length = 0;
+        while (true) {
+            if (chunkPosition == chunkLimit) {
+                final int read = inputStream.read(chunk, 0, chunk.length);
+                if (read == -1) {
+                    return length == 0 ? null : Arrays.copyOf(record, length);
+                }
+                chunkPosition = 0;
+                chunkLimit = read;
+            }
+            int end = chunkPosition;
+            while (end < chunkLimit && chunk[end] != lastDelimiterByte) {
+                end++;
+            }
+            final boolean foundLastDelimiterByte = end < chunkLimit;
+            if (foundLastDelimiterByte) {
+                end++;
+            }
+            length = append(length, end - chunkPosition);
+            chunkPosition = end;
+            if (foundLastDelimiterByte && endsWithDelimiter(length)) {
+                return Arrays.copyOf(record, length);
+            }
+        }
+    }
+
+    private int append(int length, int count) {
+        if (length + count > record.length) {
+            record = Arrays.copyOf(record, Math.max(record.length * 2, length + count));
+        }
+        System.arraycopy(chunk, chunkPosition, record, length, count);
+
+        return length + count;
+    }
+
+    private boolean endsWithDelimiter(int length) {
+        if (length < delimiter.length) {
+            return false;
+        }
+        for (int i = 0, offset = length - delimiter.length; i < delimiter.length; i++) {
+            if (record[offset + i] != delimiter[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,872 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.parser;
+
+import org.apache.commons.io.input.ReaderInputStream;
+import org.apache.daffodil.japi.DataProcessor;
+import org.apache.daffodil.japi.Diagnostic;
+import org.apache.daffodil.japi.ExternalVariableException;
+import org.apache.daffodil.japi.ParseResult;
+import org.apache.daffodil.japi.ValidationMode;
+import org.apache.daffodil.japi.io.InputSourceDataInputStream;
+import org.apache.daffodil.runtime1.processors.parsers.ParseError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.api.ApplicationContext;
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksConfigException;
+import org.smooks.api.SmooksException;
+import org.smooks.api.TypedKey;
+import org.smooks.api.resource.config.Parameter;
+import org.smooks.api.resource.config.ResourceConfig;
+import org.smooks.api.resource.reader.SmooksXMLReader;
+import org.smooks.cartridges.dfdl.DaemonPool;
+import org.smooks.cartridges.dfdl.DataProcessorBinder;
+import org.smooks.cartridges.dfdl.DataProcessorFactory;
+import org.smooks.cartridges.dfdl.DataProcessorWarmUp;
+import org.smooks.cartridges.dfdl.DfdlError;
+import org.smooks.cartridges.dfdl.DynamicVariables;
+import org.smooks.cartridges.dfdl.metrics.DfdlMetrics;
+import org.smooks.cartridges.dfdl.metrics.JfrEvents;
+import org.smooks.cartridges.dfdl.metrics.ParseEvent;
+import org.smooks.engine.injector.Scope;
+import org.smooks.engine.lifecycle.PostConstructLifecyclePhase;
+import org.smooks.engine.lookup.LifecycleManagerLookup;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+
+import jakarta.annotation.PostConstruct;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+public class DfdlParser implements SmooksXMLReader {
+
+    public static final TypedKey<List<Diagnostic>> DIAGNOSTICS_TYPED_KEY = TypedKey.of();
+    public static final TypedKey<DiagnosticsCollector> DIAGNOSTICS_COLLECTOR_TYPED_KEY = TypedKey.of();
+    public static final TypedKey<DfdlError> ERROR_TYPED_KEY = TypedKey.of();
+    public static final TypedKey<Map<String, String>> VARIABLES_TYPED_KEY = TypedKey.of();
+    public static final String RECORDS_ROOT_ELEMENT_PARAM = "recordsRootElement";
+    public static final String RECORD_DELIMITER_PARAM = "recordDelimiter";
+    public static final String RECORD_LENGTH_PREFIX_PARAM = "recordLengthPrefix";
+    public static final String REORDER_BUFFER_SIZE_PARAM = "reorderBufferSize";
+    public static final String PARSE_PARALLELISM_PARAM = "dfdl.parseParallelism";
+    public static final TypedKey<Executor> EXECUTOR_TYPED_KEY = TypedKey.of(DfdlParser.class.getName() + "#executor");
+    public static final String MEMORY_MAPPED_PARAM = "memoryMapped";
+    public static final String MAX_DIAGNOSTICS_PARAM = "maxDiagnostics";
+    public static final String DIAGNOSTICS_SAMPLING_PARAM = "diagnosticsSampling";
+    public static final String SKIP_MALFORMED_RECORDS_PARAM = "skipMalformedRecords";
+    public static final String ERROR_REPORTING_PARAM = "errorReporting";
+    public static final String EXCEPTION_ERROR_REPORTING = "exception";
+    public static final String STACKLESS_ERROR_REPORTING = "stackless";
+    public static final int DEFAULT_REORDER_BUFFER_SIZE = 64;
+    public static final int DEFAULT_MAX_DIAGNOSTICS = 1000;
+
+    protected static final int READER_BUFFER_SIZE = 64 * 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DfdlParser.class);
+
+    protected DataProcessor dataProcessor;
+    protected volatile DynamicVariables dynamicVariables;
+    protected DfdlMetrics metrics;
+    private DfdlParserState state;
+    private DataProcessorBinder.Binding binding;
+
+    @Inject
+    protected ApplicationContext applicationContext;
+
+    @Inject
+    protected ResourceConfig resourceConfig;
+
+    @Inject
+    @Named("dataProcessorFactory")
+    protected Class<? extends DataProcessorFactory> dataProcessorFactoryClass;
+
+    @Inject
+    @Named("schemaUri")
+    protected String schemaUri;
+
+    @Inject
+    @Named("validationMode")
+    protected ValidationMode validationMode = ValidationMode.Off;
+
+    @Inject
+    protected Boolean indent = false;
+
+    protected String recordsRootElement;
+    protected String recordDelimiter;
+    protected Integer recordLengthPrefix;
+    protected Integer reorderBufferSize;
+    protected Boolean memoryMapped;
+    protected Integer maxDiagnostics;
+    protected Integer diagnosticsSampling;
+    protected Boolean skipMalformedRecords;
+    protected String errorReporting;
+
+    protected ContentHandler contentHandler;
+    protected ErrorHandler errorHandler;
+    protected DTDHandler dtdHandler;
+    protected ExecutionContext executionContext;
+
+    @Override
+    public void setExecutionContext(ExecutionContext executionContext) {
+        this.executionContext = executionContext;
+    }
+
+    @Override
+    public boolean getFeature(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+        return false;
+    }
+
+    @Override
+    public void setFeature(String name, boolean value) throws SAXNotRecognizedException, SAXNotSupportedException {
+
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return null;
+    }
+
+    @Override
+    public void setProperty(String name, Object value) {
+    }
+
+    @Override
+    public void setEntityResolver(EntityResolver resolver) {
+
+    }
+
+    @Override
+    public EntityResolver getEntityResolver() {
+        return null;
+    }
+
+    @Override
+    public void setDTDHandler(DTDHandler dtdHandler) {
+        this.dtdHandler = dtdHandler;
+    }
+
+    @Override
+    public DTDHandler getDTDHandler() {
+        return dtdHandler;
+    }
+
+    @Override
+    public void setContentHandler(ContentHandler contentHandler) {
+        this.contentHandler = contentHandler;
+    }
+
+    @Override
+    public ContentHandler getContentHandler() {
+        return contentHandler;
+    }
+
+    @Override
+    public void setErrorHandler(ErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    @Override
+    public ErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+
+    @PostConstruct
+    public void postConstruct() throws IllegalAccessException, InstantiationException {
+        if (DataProcessorWarmUp.isCompileOnStartup(applicationContext)) {
+            // Smooks creates the reader together with its content handlers so kick off warm-up before anything asks for
+            // the DFDL schema: the schema is then compiled in the background while the state is set up on the first
+            // message
+            DataProcessorWarmUp.warmUp(applicationContext);
+        } else {
+            // compile now so that a broken DFDL schema fails the config rather than the first message
+            state = getState();
+            bind();
+        }
+        if (recordsRootElement == null) {
+            recordsRootElement = resourceConfig.getParameterValue(RECORDS_ROOT_ELEMENT_PARAM, String.class);
+        }
+        if (recordDelimiter == null) {
+            recordDelimiter = resourceConfig.getParameterValue(RECORD_DELIMITER_PARAM, String.class);
+        }
+        if (recordLengthPrefix == null) {
+            final String recordLengthPrefixParameterValue = resourceConfig.getParameterValue(RECORD_LENGTH_PREFIX_PARAM, String.class);
+            recordLengthPrefix = recordLengthPrefixParameterValue == null ? null : Integer.parseInt(recordLengthPrefixParameterValue.trim());
+        }
+        if (reorderBufferSize == null) {
+            reorderBufferSize = Integer.parseInt(resourceConfig.getParameterValue(REORDER_BUFFER_SIZE_PARAM, String.class, String.valueOf(DEFAULT_REORDER_BUFFER_SIZE)).trim());
+        }
+        if (memoryMapped == null) {
+            memoryMapped = Boolean.parseBoolean(resourceConfig.getParameterValue(MEMORY_MAPPED_PARAM, String.class, "false").trim());
+        }
+        if (maxDiagnostics == null) {
+            maxDiagnostics = Integer.parseInt(resourceConfig.getParameterValue(MAX_DIAGNOSTICS_PARAM, String.class, String.valueOf(DEFAULT_MAX_DIAGNOSTICS)).trim());
+        }
+        if (diagnosticsSampling == null) {
+            diagnosticsSampling = Integer.parseInt(resourceConfig.getParameterValue(DIAGNOSTICS_SAMPLING_PARAM, String.class, "1").trim());
+        }
+        if (skipMalformedRecords == null) {
+            skipMalformedRecords = Boolean.parseBoolean(resourceConfig.getParameterValue(SKIP_MALFORMED_RECORDS_PARAM, String.class, "false").trim());
+        }
+        if (skipMalformedRecords && recordDelimiter == null && recordLengthPrefix == null) {
+            throw new SmooksConfigException(String.format("%s requires %s or %s: records are only skipped when they are parsed apart from one another", SKIP_MALFORMED_RECORDS_PARAM, RECORD_DELIMITER_PARAM, RECORD_LENGTH_PREFIX_PARAM));
+        }
+        if (errorReporting == null) {
+            setErrorReporting(resourceConfig.getParameterValue(ERROR_REPORTING_PARAM, String.class, EXCEPTION_ERROR_REPORTING).trim());
+        }
+        metrics = DfdlMetrics.lookup(applicationContext);
+    }
+
+    /**
+     * Looks up the {@link DataProcessor} of this message through the state so that the processor follows the
+     * <code>DataProcessorCache</code> rather than outliving its eviction.
+     */
+    private void bind() {
+        binding = state.getBinding(source -> withExternalVariables(source, getVariables()));
+        dataProcessor = binding.getDataProcessor();
+        dynamicVariables = binding.getDynamicVariables();
+    }
+
+    /**
+     * Smooks creates a reader for every message so the state of this reader's config is looked up from the registry,
+     * and created on the first message, rather than rebuilt each time.
+     */
+    private DfdlParserState getState() throws IllegalAccessException, InstantiationException {
+        final Map<ResourceConfig, DfdlParserState> states = getStates();
+        DfdlParserState state = states.get(resourceConfig);
+        if (state == null) {
+            synchronized (states) {
+                state = states.get(resourceConfig);
+                if (state == null) {
+                    DataProcessorFactory dataProcessorFactory = dataProcessorFactoryClass.newInstance();
+                    applicationContext.getRegistry().lookup(new LifecycleManagerLookup()).applyPhase(dataProcessorFactory, new PostConstructLifecyclePhase(new Scope(applicationContext.getRegistry(), resourceConfig, dataProcessorFactory)));
+                    state = new DfdlParserState(dataProcessorFactory, resourceConfig, 2 * Runtime.getRuntime().availableProcessors());
+                    states.put(resourceConfig, state);
+                }
+            }
+        }
+
+        return state;
+    }
+
+    private Map<ResourceConfig, DfdlParserState> getStates() {
+        if (applicationContext.getRegistry().lookup(DfdlParser.class) == null) {
+            synchronized (DfdlParser.class) {
+                if (applicationContext.getRegistry().lookup(DfdlParser.class) == null) {
+                    applicationContext.getRegistry().registerObject(DfdlParser.class, new ConcurrentHashMap<ResourceConfig, DfdlParserState>());
+                }
+            }
+        }
+
+        return applicationContext.getRegistry().lookup(DfdlParser.class);
+    }
+
+    protected AbstractMap<String, String> getVariables() {
+        final List<Parameter<?>> variablesParameters = resourceConfig.getParameters("variables");
+        final AbstractMap<String, String> variables = new HashMap<>();
+        if (variablesParameters != null) {
+            for (Parameter<?> variablesParameter : variablesParameters) {
+                final Map.Entry<String, String> variable = (Map.Entry<String, String>) variablesParameter.getValue();
+                variables.put(variable.getKey(), variable.getValue());
+            }
+        }
+
+        return variables;
+    }
+
+    /**
+     * @return the variables of the message being parsed, which override the variables configured on this parser, or
+     * <code>null</code> when the message has none
+     */
+    protected Map<String, String> getMessageVariables(final ExecutionContext executionContext) {
+        return executionContext == null ? null : getDynamicVariables().resolve(executionContext, executionContext.get(VARIABLES_TYPED_KEY));
+    }
+
+    /**
+     * The configured variables are bound once per looked-up processor so that a message only pays for a
+     * {@link DataProcessor} copy when it carries its own variables. Copies are memoized by {@link DynamicVariables}.
+     */
+    protected DataProcessor getDataProcessor(final ExecutionContext executionContext) {
+        final Map<String, String> variables = getMessageVariables(executionContext);
+        if (variables == null || variables.isEmpty()) {
+            return dataProcessor;
+        } else {
+            return getDynamicVariables().bind(variables, messageVariables -> withExternalVariables(dataProcessor, messageVariables));
+        }
+    }
+
+    protected DynamicVariables getDynamicVariables() {
+        if (dynamicVariables == null) {
+            dynamicVariables = new DynamicVariables(resourceConfig);
+        }
+        return dynamicVariables;
+    }
+
+    protected DataProcessor withExternalVariables(final DataProcessor dataProcessor, final Map<String, String> variables) {
+        if (variables.isEmpty()) {
+            return dataProcessor;
+        }
+        try {
+            return dataProcessor.withExternalVariables(variables instanceof AbstractMap ? (AbstractMap<String, String>) variables : new HashMap<>(variables));
+        } catch (ExternalVariableException e) {
+            throw new ParserDfdlSmooksException(e);
+        }
+    }
+
+    @Override
+    public void parse(InputSource inputSource) {
+        final long startNanos = System.nanoTime();
+        if (state == null) {
+            try {
+                state = getState();
+            } catch (IllegalAccessException | InstantiationException e) {
+                throw new ParserDfdlSmooksException(e);
+            }
+        }
+        bind();
+        final DataProcessor copyDataProcessor = getDataProcessor(executionContext);
+        final RecordSplitter recordSplitter = createRecordSplitter();
+        final ContentHandlerInfosetOutputter contentHandlerInfosetOutputter = acquireOutputter(contentHandler);
+        final ParseTally parseTally = new ParseTally();
+        try {
+            if (recordsRootElement != null) {
+                startRecords(contentHandlerInfosetOutputter);
+            }
+            if (recordSplitter == null) {
+                parse(createInputSourceDataInputStream(inputSource), copyDataProcessor, contentHandlerInfosetOutputter, parseTally);
+            } else {
+                parseInParallel(getInputStream(inputSource), recordSplitter, copyDataProcessor, contentHandlerInfosetOutputter, parseTally);
+            }
+            if (recordsRootElement != null) {
+                endRecords(contentHandlerInfosetOutputter);
+            }
+        } finally {
+            releaseOutputter(contentHandlerInfosetOutputter);
+            if (getMetrics().isEnabled()) {
+                getMetrics().recordParse(schemaUri, System.nanoTime() - startNanos, parseTally.bytes, parseTally.records);
+            }
+        }
+    }
+
+    protected DfdlMetrics getMetrics() {
+        if (metrics == null) {
+            metrics = DfdlMetrics.lookup(applicationContext);
+        }
+        return metrics;
+    }
+
+    protected InputSourceDataInputStream createInputSourceDataInputStream(InputSource inputSource) {
+        if (Boolean.TRUE.equals(memoryMapped)) {
+            final ByteBuffer byteBuffer;
+            try {
+                byteBuffer = map(inputSource);
+            } catch (IOException e) {
+                throw new ParserDfdlSmooksException(e);
+            }
+            if (byteBuffer != null) {
+                return new InputSourceDataInputStream(byteBuffer);
+            }
+        }
+
+        return new InputSourceDataInputStream(getInputStream(inputSource));
+    }
+
+    /**
+     * Maps into memory the remainder of a file-backed input, that is, a {@link FileInputStream}, so that Daffodil reads
+     * the file without copying it onto the heap. The stream is moved to the end of the file.
+     *
+     * @return the mapped input, or <code>null</code> when the input is not file-backed or is too large to be mapped
+     */
+    protected ByteBuffer map(InputSource inputSource) throws IOException {
+        if (inputSource.getByteStream() instanceof FileInputStream) {
+            final FileChannel fileChannel = ((FileInputStream) inputSource.getByteStream()).getChannel();
+            final long position = fileChannel.position();
+            final long size = fileChannel.size() - position;
+            if (size > Integer.MAX_VALUE) {
+                LOGGER.debug("Input of {} bytes is too large to be memory-mapped", size);
+                return null;
+            }
+            final ByteBuffer byteBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            fileChannel.position(position + size);
+            return byteBuffer;
+        }
+
+        return null;
+    }
+
+    protected InputStream getInputStream(InputSource inputSource) {
+        InputStream inputStream = inputSource.getByteStream();
+        if (inputStream == null) {
+            try {
+                if (inputSource.getCharacterStream() == null && inputSource.getSystemId() != null) {
+                    inputStream = new URL(inputSource.getSystemId()).openStream();
+                } else {
+                    inputStream = ReaderInputStream.builder().
+                            setCharsetEncoder(Charset.forName(executionContext.getContentEncoding()).newEncoder()).
+                            setBufferSize(READER_BUFFER_SIZE).
+                            setReader(inputSource.getCharacterStream()).get();
+                }
+            } catch (IOException e) {
+                throw new ParserDfdlSmooksException(e);
+            }
+        }
+
+        return inputStream;
+    }
+
+    /**
+     * @return the splitter chunking the input into records parsed in parallel, or <code>null</code> to parse the input
+     * sequentially
+     */
+    protected RecordSplitter createRecordSplitter() {
+        if (recordDelimiter != null) {
+            return new DelimitedRecordSplitter(recordDelimiter.getBytes(Charset.forName(executionContext.getContentEncoding())));
+        } else if (recordLengthPrefix != null) {
+            return new LengthPrefixedRecordSplitter(recordLengthPrefix);
+        } else {
+            return null;
+        }
+    }
+
+    private ContentHandlerInfosetOutputter acquireOutputter(ContentHandler contentHandler) {
+        return state == null ? new ContentHandlerInfosetOutputter(contentHandler, indent) : state.acquireOutputter(binding, contentHandler, indent);
+    }
+
+    private void releaseOutputter(ContentHandlerInfosetOutputter contentHandlerInfosetOutputter) {
+        if (state != null) {
+            state.releaseOutputter(binding, contentHandlerInfosetOutputter);
+        }
+    }
+
+    private void startRecords(ContentHandlerInfosetOutputter contentHandlerInfosetOutputter) {
+        try {
+            contentHandlerInfosetOutputter.startRecords(recordsRootElement);
+        } catch (SAXException e) {
+            throw new ParserDfdlSmooksException(e.getMessage(), e);
+        }
+    }
+
+    private void endRecords(ContentHandlerInfosetOutputter contentHandlerInfosetOutputter) {
+        try {
+            contentHandlerInfosetOutputter.endRecords(recordsRootElement);
+        } catch (SAXException e) {
+            throw new ParserDfdlSmooksException(e.getMessage(), e);
+        }
+    }
+
+    private void parse(InputSourceDataInputStream inputSourceDataInputStream, DataProcessor copyDataProcessor, ContentHandlerInfosetOutputter contentHandlerInfosetOutputter, ParseTally parseTally) {
+        ParseResult parseResult = null;
+        while (parseResult == null || inputSourceDataInputStream.hasData()) {
+            contentHandlerInfosetOutputter.reset();
+            parseResult = parseNext(inputSourceDataInputStream, copyDataProcessor, contentHandlerInfosetOutputter, parseTally.records);
+            parseTally.records++;
+            parseTally.bytes = inputSourceDataInputStream.dis().bytePos0b();
+            handleParseResult(parseResult, contentHandlerInfosetOutputter.getContentHandlerThrowable());
+        }
+    }
+
+    /**
+     * Parses the records of the input concurrently while replaying their events to the content handler in the order
+     * the records were read. At most {@link #reorderBufferSize} records are held in memory at any time.
+     */
+    private void parseInParallel(InputStream inputStream, RecordSplitter recordSplitter, DataProcessor copyDataProcessor, ContentHandlerInfosetOutputter contentHandlerInfosetOutputter, ParseTally parseTally) {
+        final Executor executor = getExecutor();
+        final int recordLevel = recordsRootElement == null ? 0 : 1;
+        final Deque<CompletableFuture<List<RecordedParse>>> recordedParsesFutures = new ArrayDeque<>();
+        try {
+            final InputStream bufferedInputStream = new BufferedInputStream(inputStream);
+            byte[] record;
+            long recordIndex = 0;
+            while ((record = recordSplitter.next(bufferedInputStream)) != null) {
+                if (recordedParsesFutures.size() >= reorderBufferSize) {
+                    replay(recordedParsesFutures.removeFirst(), contentHandlerInfosetOutputter, parseTally);
+                }
+                final long recordStartByte = parseTally.bytes;
+                parseTally.bytes += record.length;
+                final byte[] recordBytes = record;
+                final long recordBytesIndex = recordIndex++;
+                recordedParsesFutures.addLast(CompletableFuture.supplyAsync(() -> parseRecord(recordBytes, recordBytesIndex, recordStartByte, copyDataProcessor, recordLevel), executor));
+            }
+            while (!recordedParsesFutures.isEmpty()) {
+                replay(recordedParsesFutures.removeFirst(), contentHandlerInfosetOutputter, parseTally);
+            }
+        } catch (IOException e) {
+            throw new ParserDfdlSmooksException(e);
+        } finally {
+            for (CompletableFuture<List<RecordedParse>> recordedParsesFuture : recordedParsesFutures) {
+                recordedParsesFuture.cancel(false);
+            }
+        }
+    }
+
+    private List<RecordedParse> parseRecord(byte[] record, long recordIndex, long recordStartByte, DataProcessor copyDataProcessor, int recordLevel) {
+        final InputSourceDataInputStream inputSourceDataInputStream = new InputSourceDataInputStream(record);
+        final List<RecordedParse> recordedParses = new ArrayList<>(1);
+        ParseResult parseResult = null;
+        while ((parseResult == null || inputSourceDataInputStream.hasData()) && !isFatal(parseResult)) {
+            final SaxEventRecorder saxEventRecorder = new SaxEventRecorder();
+            final ContentHandlerInfosetOutputter contentHandlerInfosetOutputter = acquireOutputter(saxEventRecorder);
+            try {
+                contentHandlerInfosetOutputter.setRecordLevel(recordLevel);
+                contentHandlerInfosetOutputter.reset();
+                parseResult = parseNext(inputSourceDataInputStream, copyDataProcessor, contentHandlerInfosetOutputter, recordIndex);
+            } finally {
+                releaseOutputter(contentHandlerInfosetOutputter);
+            }
+            recordedParses.add(new RecordedParse(saxEventRecorder, parseResult, recordIndex, recordStartByte, recordStartByte + record.length));
+        }
+
+        return recordedParses;
+    }
+
+    /**
+     * Parses the next record of the input. The parse is spanned by a {@link ParseEvent} while Java Flight Recorder is
+     * recording.
+     */
+    private ParseResult parseNext(InputSourceDataInputStream inputSourceDataInputStream, DataProcessor copyDataProcessor, ContentHandlerInfosetOutputter contentHandlerInfosetOutputter, long recordIndex) {
+        if (!JfrEvents.isAvailable() || !ParseEvent.isTypeEnabled()) {
+            return copyDataProcessor.parse(inputSourceDataInputStream, contentHandlerInfosetOutputter);
+        }
+
+        final ParseEvent parseEvent = new ParseEvent();
+
+        final long startBytePos = inputSourceDataInputStream.dis().bytePos0b();
+        parseEvent.begin();
+        final ParseResult parseResult = copyDataProcessor.parse(inputSourceDataInputStream, contentHandlerInfosetOutputter);
+        parseEvent.end();
+        if (parseEvent.shouldCommit()) {
+            parseEvent.schemaUri = schemaUri;
+            parseEvent.recordIndex = recordIndex;
+            parseEvent.bytesIn = inputSourceDataInputStream.dis().bytePos0b() - startBytePos;
+            parseEvent.error = parseResult.isError();
+            parseEvent.commit();
+        }
+
+        return parseResult;
+    }
+
+    private void replay(CompletableFuture<List<RecordedParse>> recordedParsesFuture, ContentHandlerInfosetOutputter contentHandlerInfosetOutputter, ParseTally parseTally) {
+        final List<RecordedParse> recordedParses;
+        try {
+            recordedParses = recordedParsesFuture.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ParserDfdlSmooksException(e.getCause());
+        }
+
+        for (RecordedParse recordedParse : recordedParses) {
+            parseTally.records++;
+            if (Boolean.TRUE.equals(skipMalformedRecords) && isFatal(recordedParse.parseResult)) {
+                skipRecord(recordedParse, contentHandlerInfosetOutputter);
+                continue;
+            }
+            try {
+                recordedParse.saxEventRecorder.replay(contentHandler);
+            } catch (Throwable t) {
+                throw reject(new DfdlError(t));
+            }
+            handleParseResult(recordedParse.parseResult, null);
+        }
+    }
+
+    /**
+     * Stands in for a record which failed to parse: the record's diagnostics are collected, the events it output before
+     * failing are discarded, and a <code>dfdl:recordError</code> element is output in its place. Parsing resumes from
+     * the next record.
+     */
+    private void skipRecord(RecordedParse recordedParse, ContentHandlerInfosetOutputter contentHandlerInfosetOutputter) {
+        recordDiagnostics(recordedParse.parseResult);
+        collectDiagnostics(recordedParse.parseResult);
+        final String message = getFatalDiagnostic(recordedParse.parseResult).getSomeMessage();
+        if (LOGGER.isWarnEnabled()) {
+            LOGGER.warn("Skipped malformed record {} at bytes [{}, {}): {}", recordedParse.recordIndex, recordedParse.startByte, recordedParse.endByte, message);
+        }
+        try {
+            contentHandlerInfosetOutputter.recordError(recordedParse.recordIndex, recordedParse.startByte, recordedParse.endByte, message);
+        } catch (SAXException e) {
+            throw new ParserDfdlSmooksException(e.getMessage(), e);
+        }
+    }
+
+    private Executor getExecutor() {
+        return DaemonPool.getOrCreate(applicationContext, EXECUTOR_TYPED_KEY, PARSE_PARALLELISM_PARAM, "dfdl-parser");
+    }
+
+    private boolean isFatal(ParseResult parseResult) {
+        return getFatalDiagnostic(parseResult) != null;
+    }
+
+    /**
+     * @return the first diagnostic failing the parse, or <code>null</code> when the parse is not to be failed
+     */
+    private Diagnostic getFatalDiagnostic(ParseResult parseResult) {
+        if (parseResult != null && parseResult.isError()) {
+            for (Diagnostic diagnostic : parseResult.getDiagnostics()) {
+                if (diagnostic.isError() && (validationMode.equals(ValidationMode.Full) || diagnostic.getSomeCause() instanceof ParseError)) {
+                    return diagnostic;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private void handleParseResult(ParseResult parseResult, Throwable contentHandlerThrowable) {
+        recordDiagnostics(parseResult);
+        if (parseResult.isError()) {
+            if (contentHandlerThrowable != null) {
+                throw reject(new DfdlError(contentHandlerThrowable));
+            }
+            collectDiagnostics(parseResult);
+            for (Diagnostic diagnostic : parseResult.getDiagnostics()) {
+                if (diagnostic.isError()) {
+                    if (validationMode.equals(ValidationMode.Full) || (diagnostic.getSomeCause() != null && diagnostic.getSomeCause() instanceof ParseError)) {
+                        throw reject(new DfdlError(diagnostic));
+                    } else if (LOGGER.isErrorEnabled()) {
+                        LOGGER.error(diagnostic.getSomeMessage());
+                    }
+                } else if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug(diagnostic.getSomeMessage());
+                }
+            }
+        } else if (LOGGER.isDebugEnabled()) {
+            for (Diagnostic diagnostic : parseResult.getDiagnostics()) {
+                LOGGER.debug(diagnostic.getSomeMessage());
+            }
+        }
+    }
+
+    /**
+     * Puts the error rejecting the message in the execution context, where it can be looked up without inspecting the
+     * exception. In <code>stackless</code> error reporting, the exception is created without a stack trace and formats
+     * its message on demand so that rejecting a message costs about as much as accepting it.
+     *
+     * @return the exception to throw
+     */
+    private SmooksException reject(DfdlError dfdlError) {
+        if (executionContext != null) {
+            executionContext.put(ERROR_TYPED_KEY, dfdlError);
+        }
+        if (STACKLESS_ERROR_REPORTING.equals(errorReporting)) {
+            return new StacklessParserDfdlSmooksException(dfdlError);
+        } else if (dfdlError.getDiagnostic() == null) {
+            return new SmooksException(dfdlError.getCause());
+        } else {
+            return new ParserDfdlSmooksException(dfdlError.getMessage(), dfdlError.getCause());
+        }
+    }
+
+    private void recordDiagnostics(ParseResult parseResult) {
+        if (getMetrics().isEnabled()) {
+            for (Diagnostic diagnostic : parseResult.getDiagnostics()) {
+                getMetrics().recordDiagnostic(schemaUri, diagnostic);
+            }
+        }
+    }
+
+    private void collectDiagnostics(ParseResult parseResult) {
+        final DiagnosticsCollector diagnosticsCollector = getDiagnosticsCollector();
+        for (Diagnostic diagnostic : parseResult.getDiagnostics()) {
+            diagnosticsCollector.add(diagnostic);
+        }
+    }
+
+    /**
+     * The diagnostics of a message's records are accumulated in the execution context rather than replaced on each
+     * record. Diagnostic messages are formatted, which can be costly, only when logged or thrown.
+     */
+    private DiagnosticsCollector getDiagnosticsCollector() {
+        DiagnosticsCollector diagnosticsCollector = executionContext.get(DIAGNOSTICS_COLLECTOR_TYPED_KEY);
+        if (diagnosticsCollector == null) {
+            diagnosticsCollector = new DiagnosticsCollector(maxDiagnostics == null ? DEFAULT_MAX_DIAGNOSTICS : maxDiagnostics, diagnosticsSampling == null ? 1 : diagnosticsSampling);
+            executionContext.put(DIAGNOSTICS_COLLECTOR_TYPED_KEY, diagnosticsCollector);
+            executionContext.put(DIAGNOSTICS_TYPED_KEY, diagnosticsCollector.getDiagnostics());
+        }
+
+        return diagnosticsCollector;
+    }
+
+    /**
+     * Bytes and records parsed from a message, kept for {@link DfdlMetrics}.
+     */
+    private static final class ParseTally {
+        private long bytes;
+        private long records;
+    }
+
+    private static final class RecordedParse {
+        private final SaxEventRecorder saxEventRecorder;
+        private final ParseResult parseResult;
+        private final long recordIndex;
+        private final long startByte;
+        private final long endByte;
+
+        private RecordedParse(SaxEventRecorder saxEventRecorder, ParseResult parseResult, long recordIndex, long startByte, long endByte) {
+            this.saxEventRecorder = saxEventRecorder;
+            this.parseResult = parseResult;
+            this.recordIndex = recordIndex;
+            this.startByte = startByte;
+            this.endByte = endByte;
+        }
+    }
+
+    @Override
+    public void parse(String systemId) {
+        parse(new InputSource(systemId));
+    }
+
+    public ApplicationContext getApplicationContext() {
+        return applicationContext;
+    }
+
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    public void setIndent(Boolean indent) {
+        this.indent = indent;
+    }
+
+    public Class<? extends DataProcessorFactory> getDataProcessorFactoryClass() {
+        return dataProcessorFactoryClass;
+    }
+
+    public void setDataProcessorFactoryClass(Class<? extends DataProcessorFactory> dataProcessorFactoryClass) {
+        this.dataProcessorFactoryClass = dataProcessorFactoryClass;
+    }
+
+    public ResourceConfig getResourceConfig() {
+        return resourceConfig;
+    }
+
+    public void setResourceConfig(ResourceConfig resourceConfig) {
+        this.resourceConfig = resourceConfig;
+    }
+
+    public String getSchemaUri() {
+        return schemaUri;
+    }
+
+    public void setSchemaUri(String schemaUri) {
+        this.schemaUri = schemaUri;
+    }
+
+    public void setValidationMode(ValidationMode validationMode) {
+        this.validationMode = validationMode;
+    }
+
+    public void setRecordDelimiter(String recordDelimiter) {
+        this.recordDelimiter = recordDelimiter;
+    }
+
+    public void setRecordLengthPrefix(Integer recordLengthPrefix) {
+        this.recordLengthPrefix = recordLengthPrefix;
+    }
+
+    public void setReorderBufferSize(Integer reorderBufferSize) {
+        this.reorderBufferSize = reorderBufferSize;
+    }
+
+    public void setMemoryMapped(Boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+
+    public void setMaxDiagnostics(Integer maxDiagnostics) {
+        this.maxDiagnostics = maxDiagnostics;
+    }
+
+    public void setDiagnosticsSampling(Integer diagnosticsSampling) {
+        this.diagnosticsSampling = diagnosticsSampling;
+    }
+
+    /**
+     * @param errorReporting how messages are rejected: <code>exception</code> throws an exception with a stack trace
+     *                       while <code>stackless</code> throws an exception without one
+     */
+    public void setErrorReporting(String errorReporting) {
+        if (!errorReporting.equals(EXCEPTION_ERROR_REPORTING) && !errorReporting.equals(STACKLESS_ERROR_REPORTING)) {
+            throw new IllegalArgumentException(String.format("Invalid error reporting [%s]", errorReporting));
+        }
+        this.errorReporting = errorReporting;
+    }
+
+    public void setSkipMalformedRecords(Boolean skipMalformedRecords) {
+        this.skipMalformedRecords = skipMalformedRecords;
+    }
+
+    public String getRecordsRootElement() {
+        return recordsRootElement;
+    }
+
+    public void setRecordsRootElement(String recordsRootElement) {
+        this.recordsRootElement = recordsRootElement;
+    }
+}
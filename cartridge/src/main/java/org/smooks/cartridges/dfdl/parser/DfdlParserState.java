@@ -0,0 +1,142 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.parser;
+
+import org.apache.daffodil.japi.DataProcessor;
+import org.smooks.api.resource.config.ResourceConfig;
+import org.smooks.cartridges.dfdl.DataProcessorBinder;
+import org.smooks.cartridges.dfdl.DataProcessorFactory;
+import org.smooks.cartridges.dfdl.DynamicVariables;
+import org.xml.sax.ContentHandler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.UnaryOperator;
+
+/**
+ * State shared by the {@link DfdlParser} instances of a reader config. Smooks creates a new reader for each message so
+ * anything worth keeping between messages, such as the memoized processors of {@link DynamicVariables} and the infoset
+ * outputters, is held here instead. The {@link DataProcessor} itself is not held: it is looked up from the
+ * {@link DataProcessorFactory}, and therefore from the <code>DataProcessorCache</code>, on each message so that a
+ * processor evicted from the cache is released.
+ */
+class DfdlParserState {
+
+    private final DataProcessorBinder dataProcessorBinder;
+    private final int maxIdleOutputters;
+    private volatile OutputterPool outputterPool;
+
+    /**
+     * @param maxIdleOutputters the number of released outputters kept for reuse
+     */
+    DfdlParserState(DataProcessorFactory dataProcessorFactory, ResourceConfig resourceConfig, int maxIdleOutputters) {
+        this.dataProcessorBinder = new DataProcessorBinder(dataProcessorFactory::createDataProcessor, resourceConfig);
+        this.maxIdleOutputters = maxIdleOutputters;
+    }
+
+    /**
+     * Looks up the processor from the factory. The configured variables are bound, and the {@link DynamicVariables}
+     * memo is created, again only when the factory hands out a different processor than on the previous message, for
+     * instance, after the previous one was evicted from the cache. The idle outputters of the previous binding are
+     * dropped at the same time.
+     *
+     * @param variablesBinder binds the configured variables to the processor looked up from the factory
+     */
+    DataProcessorBinder.Binding getBinding(UnaryOperator<DataProcessor> variablesBinder) {
+        final DataProcessorBinder.Binding binding = dataProcessorBinder.bind(variablesBinder);
+        final OutputterPool outputterPool = this.outputterPool;
+        if (outputterPool == null || outputterPool.binding != binding) {
+            synchronized (this) {
+                if (this.outputterPool == null || this.outputterPool.binding != binding) {
+                    this.outputterPool = new OutputterPool(binding, new ArrayBlockingQueue<>(maxIdleOutputters));
+                }
+            }
+        }
+
+        return binding;
+    }
+
+    /**
+     * Hands out an idle outputter of the binding or, when none is idle, a new one. The outputter must be given back
+     * with {@link #releaseOutputter(DataProcessorBinder.Binding, ContentHandlerInfosetOutputter)}.
+     */
+    ContentHandlerInfosetOutputter acquireOutputter(DataProcessorBinder.Binding binding, ContentHandler contentHandler, boolean indent) {
+        final OutputterPool outputterPool = this.outputterPool;
+        ContentHandlerInfosetOutputter outputter = outputterPool != null && outputterPool.binding == binding ? outputterPool.outputters.poll() : null;
+        if (outputter == null) {
+            outputter = new ContentHandlerInfosetOutputter(contentHandler, indent);
+        } else {
+            outputter.setContentHandler(contentHandler);
+            outputter.setIndent(indent);
+            outputter.setRecordLevel(0);
+            outputter.reset();
+        }
+
+        return outputter;
+    }
+
+    /**
+     * Keeps the outputter for reuse unless enough outputters are already idle or the binding is no longer the current
+     * one, in which case it is left to the garbage collector. Outputters cache the element metadata of the processor
+     * they were used with so they are pooled per binding: an outputter of an evicted processor is never reused, and
+     * therefore never keeps that processor's metadata reachable.
+     */
+    void releaseOutputter(DataProcessorBinder.Binding binding, ContentHandlerInfosetOutputter outputter) {
+        outputter.setContentHandler(null);
+        outputter.reset();
+        final OutputterPool outputterPool = this.outputterPool;
+        if (outputterPool != null && outputterPool.binding == binding) {
+            outputterPool.outputters.offer(outputter);
+        }
+    }
+
+    private static final class OutputterPool {
+        private final DataProcessorBinder.Binding binding;
+        private final BlockingQueue<ContentHandlerInfosetOutputter> outputters;
+
+        private OutputterPool(DataProcessorBinder.Binding binding, BlockingQueue<ContentHandlerInfosetOutputter> outputters) {
+            this.binding = binding;
+            this.outputters = outputters;
+        }
+    }
+}
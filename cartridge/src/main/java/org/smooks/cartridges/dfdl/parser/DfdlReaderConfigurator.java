@@ -60,6 +60,15 @@ public class DfdlReaderConfigurator implements ReaderConfigurator {
     protected Boolean cacheOnDisk = false;
     protected ValidationMode validationMode = ValidationMode.Off;
     protected Boolean indent = false;
+    protected String recordsRootElement;
+    protected String recordDelimiter;
+    protected Integer recordLengthPrefix;
+    protected Integer reorderBufferSize;
+    protected Boolean memoryMapped = false;
+    protected Integer maxDiagnostics;
+    protected Integer diagnosticsSampling;
+    protected Boolean skipMalformedRecords = false;
+    protected String errorReporting = DfdlParser.EXCEPTION_ERROR_REPORTING;
     protected String targetProfile;
     protected Map<String, String> variables = new HashMap<>();
 
@@ -92,6 +101,96 @@ public class DfdlReaderConfigurator implements ReaderConfigurator {
         return this;
     }
 
+    public String getRecordsRootElement() {
+        return recordsRootElement;
+    }
+
+    public DfdlReaderConfigurator setRecordsRootElement(String recordsRootElement) {
+        AssertArgument.isNotNullAndNotEmpty(recordsRootElement, "recordsRootElement");
+        this.recordsRootElement = recordsRootElement;
+        return this;
+    }
+
+    public String getRecordDelimiter() {
+        return recordDelimiter;
+    }
+
+    public DfdlReaderConfigurator setRecordDelimiter(String recordDelimiter) {
+        AssertArgument.isNotNullAndNotEmpty(recordDelimiter, "recordDelimiter");
+        this.recordDelimiter = recordDelimiter;
+        return this;
+    }
+
+    public Integer getRecordLengthPrefix() {
+        return recordLengthPrefix;
+    }
+
+    public DfdlReaderConfigurator setRecordLengthPrefix(Integer recordLengthPrefix) {
+        AssertArgument.isNotNull(recordLengthPrefix, "recordLengthPrefix");
+        this.recordLengthPrefix = recordLengthPrefix;
+        return this;
+    }
+
+    public Integer getReorderBufferSize() {
+        return reorderBufferSize;
+    }
+
+    public DfdlReaderConfigurator setReorderBufferSize(Integer reorderBufferSize) {
+        AssertArgument.isNotNull(reorderBufferSize, "reorderBufferSize");
+        this.reorderBufferSize = reorderBufferSize;
+        return this;
+    }
+
+    public Boolean getMemoryMapped() {
+        return memoryMapped;
+    }
+
+    public DfdlReaderConfigurator setMemoryMapped(Boolean memoryMapped) {
+        AssertArgument.isNotNull(memoryMapped, "memoryMapped");
+        this.memoryMapped = memoryMapped;
+        return this;
+    }
+
+    public Integer getMaxDiagnostics() {
+        return maxDiagnostics;
+    }
+
+    public DfdlReaderConfigurator setMaxDiagnostics(Integer maxDiagnostics) {
+        AssertArgument.isNotNull(maxDiagnostics, "maxDiagnostics");
+        this.maxDiagnostics = maxDiagnostics;
+        return this;
+    }
+
+    public Integer getDiagnosticsSampling() {
+        return diagnosticsSampling;
+    }
+
+    public DfdlReaderConfigurator setDiagnosticsSampling(Integer diagnosticsSampling) {
+        AssertArgument.isNotNull(diagnosticsSampling, "diagnosticsSampling");
+        this.diagnosticsSampling = diagnosticsSampling;
+        return this;
+    }
+
+    public Boolean getSkipMalformedRecords() {
+        return skipMalformedRecords;
+    }
+
+    public DfdlReaderConfigurator setSkipMalformedRecords(Boolean skipMalformedRecords) {
+        AssertArgument.isNotNull(skipMalformedRecords, "skipMalformedRecords");
+        this.skipMalformedRecords = skipMalformedRecords;
+        return this;
+    }
+
+    public String getErrorReporting() {
+        return errorReporting;
+    }
+
+    public DfdlReaderConfigurator setErrorReporting(String errorReporting) {
+        AssertArgument.isNotNullAndNotEmpty(errorReporting, "errorReporting");
+        this.errorReporting = errorReporting;
+        return this;
+    }
+
     protected String getDataProcessorFactory() {
         return "org.smooks.cartridges.dfdl.DataProcessorFactory";
     }
@@ -125,7 +224,28 @@ public class DfdlReaderConfigurator implements ReaderConfigurator {
         genericReaderConfigurator.getParameters().setProperty("cacheOnDisk", Boolean.toString(cacheOnDisk));
         genericReaderConfigurator.getParameters().setProperty("debugging", Boolean.toString(debugging));
         genericReaderConfigurator.getParameters().setProperty("indent", Boolean.toString(indent));
+        genericReaderConfigurator.getParameters().setProperty(DfdlParser.MEMORY_MAPPED_PARAM, Boolean.toString(memoryMapped));
+        genericReaderConfigurator.getParameters().setProperty(DfdlParser.SKIP_MALFORMED_RECORDS_PARAM, Boolean.toString(skipMalformedRecords));
+        genericReaderConfigurator.getParameters().setProperty(DfdlParser.ERROR_REPORTING_PARAM, errorReporting);
         genericReaderConfigurator.getParameters().setProperty("dataProcessorFactory", getDataProcessorFactory());
+        if (recordsRootElement != null) {
+            genericReaderConfigurator.getParameters().setProperty(DfdlParser.RECORDS_ROOT_ELEMENT_PARAM, recordsRootElement);
+        }
+        if (recordDelimiter != null) {
+            genericReaderConfigurator.getParameters().setProperty(DfdlParser.RECORD_DELIMITER_PARAM, recordDelimiter);
+        }
+        if (recordLengthPrefix != null) {
+            genericReaderConfigurator.getParameters().setProperty(DfdlParser.RECORD_LENGTH_PREFIX_PARAM, recordLengthPrefix.toString());
+        }
+        if (reorderBufferSize != null) {
+            genericReaderConfigurator.getParameters().setProperty(DfdlParser.REORDER_BUFFER_SIZE_PARAM, reorderBufferSize.toString());
+        }
+        if (maxDiagnostics != null) {
+            genericReaderConfigurator.getParameters().setProperty(DfdlParser.MAX_DIAGNOSTICS_PARAM, maxDiagnostics.toString());
+        }
+        if (diagnosticsSampling != null) {
+            genericReaderConfigurator.getParameters().setProperty(DfdlParser.DIAGNOSTICS_SAMPLING_PARAM, diagnosticsSampling.toString());
+        }
 
         final List<ResourceConfig> resourceConfigs = genericReaderConfigurator.toConfig();
         final ResourceConfig resourceConfig = resourceConfigs.get(0);
@@ -0,0 +1,98 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.parser;
+
+import org.apache.daffodil.japi.Diagnostic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Accumulates the diagnostics of the records making up a message. Only every <code>sampling</code>th diagnostic is
+ * retained, up to <code>maxDiagnostics</code> diagnostics, so that a message riddled with errors does not hold on to
+ * an unbounded number of diagnostics, each of which may embed a dump of the data. Diagnostics which are not retained
+ * are still counted.
+ */
+public class DiagnosticsCollector {
+
+    private final int maxDiagnostics;
+    private final int sampling;
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+    private long count;
+
+    public DiagnosticsCollector(final int maxDiagnostics, final int sampling) {
+        if (maxDiagnostics < 0) {
+            throw new IllegalArgumentException(String.format("Invalid max diagnostics [%s]", maxDiagnostics));
+        }
+        if (sampling < 1) {
+            throw new IllegalArgumentException(String.format("Invalid diagnostics sampling [%s]", sampling));
+        }
+        this.maxDiagnostics = maxDiagnostics;
+        this.sampling = sampling;
+    }
+
+    public void add(final Diagnostic diagnostic) {
+        if (count++ % sampling == 0 && diagnostics.size() < maxDiagnostics) {
+            diagnostics.add(diagnostic);
+        }
+    }
+
+    /**
+     * @return the retained diagnostics in the order they were reported
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return Collections.unmodifiableList(diagnostics);
+    }
+
+    /**
+     * @return the number of diagnostics reported, whether retained or not
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public long getDroppedCount() {
+        return count - diagnostics.size();
+    }
+}
@@ -0,0 +1,91 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.parser;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Splits an input made up of records preceded by their length, in bytes, as a big-endian unsigned integer of 1, 2, or 4
+ * bytes. The length excludes the prefix itself which is kept at the start of its record.
+ */
+public class LengthPrefixedRecordSplitter implements RecordSplitter {
+
+    private final int prefixLength;
+    private long offset;
+
+    public LengthPrefixedRecordSplitter(int prefixLength) {
+        if (prefixLength != 1 && prefixLength != 2 && prefixLength != 4) {
+            throw new IllegalArgumentException("'prefixLength' argument in method call must be 1, 2, or 4.");
+        }
+        this.prefixLength = prefixLength;
+    }
+
+    @Override
+    public byte[] next(InputStream inputStream) throws IOException {
+        final int firstByte = inputStream.read();
+        if (firstByte == -1) {
+            return null;
+        }
+
+        final byte[] prefix = new byte[prefixLength];
+        prefix[0] = (byte) firstByte;
+        final DataInputStream dataInputStream = new DataInputStream(inputStream);
+        dataInputStream.readFully(prefix, 1, prefixLength - 1);
+        long length = 0;
+        for (byte b : prefix) {
+            length = (length << 8) | (b & 0xFF);
+        }
+        if (length > Integer.MAX_VALUE - prefixLength) {
+            throw new IOException(String.format("Malformed record at byte offset %s: record length %s exceeds the maximum record length of %s", offset, length, Integer.MAX_VALUE - prefixLength));
+        }
+
+        final byte[] record = new byte[prefixLength + (int) length];
+        System.arraycopy(prefix, 0, record, 0, prefixLength);
+        dataInputStream.readFully(record, prefixLength, (int) length);
+        offset += record.length;
+
+        return record;
+    }
+}
@@ -0,0 +1,114 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.parser;
+
+import scala.xml.NamespaceBinding;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Unsynchronized, array-backed stack of the namespace bindings in scope, indexed by binding so that testing whether a
+ * binding is already declared is O(1) rather than a scan of the stack.
+ * <p>
+ * Bindings are canonicalized with {@link #canonicalize(NamespaceBinding)} once per element declaration so that the
+ * index can compare them by identity: hashing a {@link NamespaceBinding} walks, and allocates for, its parent chain.
+ */
+class NamespaceScopeStack {
+
+    private final Map<NamespaceBinding, NamespaceBinding> canonicalBindings = new HashMap<>();
+    private final Map<NamespaceBinding, int[]> declaredBindings = new IdentityHashMap<>();
+    private NamespaceBinding[] bindings = new NamespaceBinding[16];
+    private int size;
+
+    NamespaceBinding canonicalize(final NamespaceBinding namespaceBinding) {
+        return canonicalBindings.computeIfAbsent(namespaceBinding, key -> key);
+    }
+
+    /**
+     * @param namespaceBinding a binding returned by {@link #canonicalize(NamespaceBinding)}
+     * @return <code>true</code> if the binding was not in scope before being pushed
+     */
+    boolean push(final NamespaceBinding namespaceBinding) {
+        if (size == bindings.length) {
+            bindings = Arrays.copyOf(bindings, size * 2);
+        }
+        bindings[size++] = namespaceBinding;
+
+        final int[] count = declaredBindings.get(namespaceBinding);
+        if (count == null) {
+            declaredBindings.put(namespaceBinding, new int[]{1});
+            return true;
+        } else {
+            count[0]++;
+            return false;
+        }
+    }
+
+    NamespaceBinding pop() {
+        final NamespaceBinding namespaceBinding = bindings[--size];
+        bindings[size] = null;
+        final int[] count = declaredBindings.get(namespaceBinding);
+        if (--count[0] == 0) {
+            declaredBindings.remove(namespaceBinding);
+        }
+
+        return namespaceBinding;
+    }
+
+    boolean isDeclared(final NamespaceBinding namespaceBinding) {
+        return declaredBindings.containsKey(namespaceBinding);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(bindings, 0, size, null);
+        size = 0;
+        declaredBindings.clear();
+    }
+}
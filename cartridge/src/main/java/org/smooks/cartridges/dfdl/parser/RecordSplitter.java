@@ -2,79 +2,60 @@
  * ========================LICENSE_START=================================
  * Smooks DFDL Cartridge
  * %%
- * Copyright (C) 2020 - 2024 Smooks
+ * Copyright (C) 2020 Smooks
  * %%
  * Licensed under the terms of the Apache License Version 2.0, or
  * the GNU Lesser General Public License version 3.0 or later.
- * 
+ *
  * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
- * 
+ *
  * ======================================================================
- * 
+ *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
- * 
+ *
  *     http://www.apache.org/licenses/LICENSE-2.0
- * 
+ *
  * Unless required by applicable law or agreed to in writing, software
  * distributed under the License is distributed on an "AS IS" BASIS,
  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
  * See the License for the specific language governing permissions and
  * limitations under the License.
- * 
+ *
  * ======================================================================
- * 
+ *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU Lesser General Public
  * License as published by the Free Software Foundation; either
  * version 3 of the License, or (at your option) any later version.
- * 
+ *
  * This program is distributed in the hope that it will be useful,
  * but WITHOUT ANY WARRANTY; without even the implied warranty of
  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
  * Lesser General Public License for more details.
- * 
+ *
  * You should have received a copy of the GNU Lesser General Public License
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  * =========================LICENSE_END==================================
  */
-package org.smooks.cartridges.dfdl;
+package org.smooks.cartridges.dfdl.parser;
 
-import org.junit.jupiter.api.Test;
-import org.smooks.engine.resource.config.DefaultResourceConfig;
-import org.smooks.testkit.MockApplicationContext;
+import java.io.IOException;
+import java.io.InputStream;
 
-public class DataProcessorFactoryTestCase {
-
-    @Test
-    public void testCreateDataProcessorGivenFileSchemaUri() {
-        DataProcessorFactory dataProcessorFactory = new DataProcessorFactory();
-        dataProcessorFactory.setSchemaUri("src/test/resources/csv.dfdl.xsd");
-        dataProcessorFactory.setApplicationContext(new MockApplicationContext());
-        dataProcessorFactory.setResourceConfig(new DefaultResourceConfig());
-
-        dataProcessorFactory.createDataProcessor();
-    }
-
-    @Test
-    public void testCreateDataProcessorGivenClasspathSchemaUriWithRootSlash() {
-        DataProcessorFactory dataProcessorFactory = new DataProcessorFactory();
-        dataProcessorFactory.setSchemaUri("/csv.dfdl.xsd");
-        dataProcessorFactory.setApplicationContext(new MockApplicationContext());
-        dataProcessorFactory.setResourceConfig(new DefaultResourceConfig());
-
-        dataProcessorFactory.createDataProcessor();
-    }
-
-    @Test
-    public void testCreateDataProcessorGivenClasspathSchemaUriWithoutRootSlash() {
-        DataProcessorFactory dataProcessorFactory = new DataProcessorFactory();
-        dataProcessorFactory.setSchemaUri("csv.dfdl.xsd");
-        dataProcessorFactory.setApplicationContext(new MockApplicationContext());
-        dataProcessorFactory.setResourceConfig(new DefaultResourceConfig());
-
-        dataProcessorFactory.createDataProcessor();
-    }
+/**
+ * Chunks an input into independent records so that {@link DfdlParser} can parse the records concurrently. Each record
+ * is handed unchanged to the DFDL schema which must therefore describe a single record, including its delimiter or
+ * length prefix.
+ */
+public interface RecordSplitter {
+
+    /**
+     * @param inputStream the input being split. A splitter may read ahead of the record it returns so it is handed the
+     *                    same input on each call until it returns <code>null</code>
+     * @return the bytes of the next record, or <code>null</code> when the input is consumed
+     */
+    byte[] next(InputStream inputStream) throws IOException;
 }
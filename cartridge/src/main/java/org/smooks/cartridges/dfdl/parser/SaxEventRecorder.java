@@ -0,0 +1,136 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.parser;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records the SAX events of a record parsed on a worker thread so that they can be replayed, in the order the records
+ * were read, to the content handler of the parsing thread. Character arrays and attributes are copied since the
+ * outputter reuses them.
+ */
+class SaxEventRecorder implements ContentHandler {
+
+    @FunctionalInterface
+    interface SaxEvent {
+        void replay(ContentHandler contentHandler) throws SAXException;
+    }
+
+    private final List<SaxEvent> saxEvents = new ArrayList<>();
+
+    void replay(ContentHandler contentHandler) throws SAXException {
+        for (SaxEvent saxEvent : saxEvents) {
+            saxEvent.replay(contentHandler);
+        }
+    }
+
+    int size() {
+        return saxEvents.size();
+    }
+
+    @Override
+    public void setDocumentLocator(Locator locator) {
+
+    }
+
+    @Override
+    public void startDocument() {
+        saxEvents.add(ContentHandler::startDocument);
+    }
+
+    @Override
+    public void endDocument() {
+        saxEvents.add(ContentHandler::endDocument);
+    }
+
+    @Override
+    public void startPrefixMapping(String prefix, String uri) {
+        saxEvents.add(contentHandler -> contentHandler.startPrefixMapping(prefix, uri));
+    }
+
+    @Override
+    public void endPrefixMapping(String prefix) {
+        saxEvents.add(contentHandler -> contentHandler.endPrefixMapping(prefix));
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts) {
+        final Attributes attributes = atts.getLength() == 0 ? ContentHandlerInfosetOutputter.EMPTY_ATTRIBUTES : new AttributesImpl(atts);
+        saxEvents.add(contentHandler -> contentHandler.startElement(uri, localName, qName, attributes));
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        saxEvents.add(contentHandler -> contentHandler.endElement(uri, localName, qName));
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        final char[] characters = Arrays.copyOfRange(ch, start, start + length);
+        saxEvents.add(contentHandler -> contentHandler.characters(characters, 0, characters.length));
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+        final char[] characters = Arrays.copyOfRange(ch, start, start + length);
+        saxEvents.add(contentHandler -> contentHandler.ignorableWhitespace(characters, 0, characters.length));
+    }
+
+    @Override
+    public void processingInstruction(String target, String data) {
+        saxEvents.add(contentHandler -> contentHandler.processingInstruction(target, data));
+    }
+
+    @Override
+    public void skippedEntity(String name) {
+        saxEvents.add(contentHandler -> contentHandler.skippedEntity(name));
+    }
+}
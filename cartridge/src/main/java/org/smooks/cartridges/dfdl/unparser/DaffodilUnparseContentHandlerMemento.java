@@ -0,0 +1,148 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 - 2021 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.unparser;
+
+import org.apache.daffodil.japi.DaffodilUnparseContentHandler;
+import org.smooks.api.TypedKey;
+import org.smooks.api.delivery.fragment.Fragment;
+import org.smooks.api.resource.visitor.Visitor;
+import org.smooks.cartridges.dfdl.metrics.UnparseEvent;
+import org.smooks.engine.delivery.fragment.NodeFragment;
+import org.smooks.engine.memento.VisitorMemento;
+import org.w3c.dom.Node;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.io.OutputStream;
+
+class DaffodilUnparseContentHandlerMemento extends VisitorMemento<DaffodilUnparseContentHandler> {
+    protected static final TypedKey<String> DAFFODIL_UNPARSE_CONTENT_HANDLER = TypedKey.of();
+    protected final Object fragmentNode;
+    protected final String fragmentId;
+    protected DaffodilUnparseContentHandler daffodilUnparseContentHandler;
+    protected OutputStream outputStream;
+    protected final AttributesImpl attributes = new AttributesImpl();
+    protected char[] chars = new char[256];
+    protected int depth;
+    protected long startNanos;
+    protected UnparseEvent unparseEvent;
+
+    public DaffodilUnparseContentHandlerMemento(final Fragment<?> fragment, final Visitor visitor) {
+        super(fragment, visitor, DAFFODIL_UNPARSE_CONTENT_HANDLER, null);
+        this.fragmentNode = fragment.unwrap();
+        this.fragmentId = fragment.getId();
+    }
+
+    /**
+     * Tells whether the node is the fragment's node without wrapping it in a {@link NodeFragment}. The node may be a
+     * delegate of the fragment's node, in which case the two are matched by fragment ID.
+     */
+    public boolean isFragmentNode(final Node node) {
+        return node == fragmentNode || fragmentId.equals(node.getUserData(NodeFragment.ID_USER_DATA_KEY));
+    }
+
+    public DaffodilUnparseContentHandler getDaffodilUnparseContentHandler() {
+        return daffodilUnparseContentHandler;
+    }
+
+    public void setDaffodilUnparseContentHandler(final DaffodilUnparseContentHandler daffodilUnparseContentHandler) {
+        this.daffodilUnparseContentHandler = daffodilUnparseContentHandler;
+    }
+
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    public void setOutputStream(final OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * @return the number of elements opened and not yet closed in the fragment
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(final int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the fragment started to be unparsed
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public void setStartNanos(final long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * @return the event spanning the fragment while Java Flight Recorder is recording, otherwise <code>null</code>
+     */
+    public UnparseEvent getUnparseEvent() {
+        return unparseEvent;
+    }
+
+    public void setUnparseEvent(final UnparseEvent unparseEvent) {
+        this.unparseEvent = unparseEvent;
+    }
+
+    /**
+     * @return the attributes buffer reused for each element of the fragment
+     */
+    public AttributesImpl getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * @return the characters buffer reused for each text node of the fragment, grown to hold at least <code>length</code> characters
+     */
+    public char[] getChars(final int length) {
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        return chars;
+    }
+}
@@ -0,0 +1,554 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.unparser;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.WriterOutputStream;
+import org.apache.daffodil.japi.DaffodilUnparseContentHandler;
+import org.apache.daffodil.japi.DataProcessor;
+import org.apache.daffodil.japi.Diagnostic;
+import org.apache.daffodil.japi.ExternalVariableException;
+import org.apache.daffodil.japi.UnparseResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.api.ApplicationContext;
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksException;
+import org.smooks.api.TypedKey;
+import org.smooks.api.delivery.sax.StreamSinkWriter;
+import org.smooks.api.io.Sink;
+import org.smooks.api.resource.config.Parameter;
+import org.smooks.api.resource.config.ResourceConfig;
+import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
+import org.smooks.api.resource.visitor.sax.ng.BeforeVisitor;
+import org.smooks.api.resource.visitor.sax.ng.ChildrenVisitor;
+import org.smooks.cartridges.dfdl.DataProcessorBinder;
+import org.smooks.cartridges.dfdl.DfdlError;
+import org.smooks.cartridges.dfdl.DynamicVariables;
+import org.smooks.cartridges.dfdl.metrics.DfdlMetrics;
+import org.smooks.cartridges.dfdl.metrics.JfrEvents;
+import org.smooks.cartridges.dfdl.metrics.UnparseEvent;
+import org.smooks.engine.delivery.fragment.NodeFragment;
+import org.smooks.io.Stream;
+import org.smooks.io.sink.StreamSink;
+import org.w3c.dom.CharacterData;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.helpers.AttributesImpl;
+
+import jakarta.annotation.PostConstruct;
+
+import javax.inject.Inject;
+import javax.xml.XMLConstants;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@StreamSinkWriter
+public class DfdlUnparser implements BeforeVisitor, AfterVisitor, ChildrenVisitor {
+
+    public static final TypedKey<Map<String, String>> VARIABLES_TYPED_KEY = TypedKey.of();
+    public static final TypedKey<DfdlError> ERROR_TYPED_KEY = TypedKey.of();
+    public static final String OUTPUT_BUFFER_SIZE_PARAM = "outputBufferSize";
+    public static final String DIRECT_SINK_OUTPUT_PARAM = "directSinkOutput";
+    public static final String ERROR_CHECKPOINT_PARAM = "errorCheckpoint";
+    public static final String EVENT_ERROR_CHECKPOINT = "event";
+    public static final String DOCUMENT_ERROR_CHECKPOINT = "document";
+    public static final String SCHEMA_URI_PARAM = "schemaUri";
+    public static final String ERROR_REPORTING_PARAM = "errorReporting";
+    public static final String EXCEPTION_ERROR_REPORTING = "exception";
+    public static final String STACKLESS_ERROR_REPORTING = "stackless";
+
+    protected static final Logger LOGGER = LoggerFactory.getLogger(DfdlUnparser.class);
+    protected static final int DEFAULT_OUTPUT_BUFFER_SIZE = 8192;
+    protected static final String CDATA_ATTRIBUTE_TYPE = "CDATA";
+    protected static final String NIL_ATTRIBUTE = "nil";
+    protected final Supplier<DataProcessor> dataProcessorSupplier;
+    protected volatile DataProcessorBinder dataProcessorBinder;
+    protected volatile DynamicVariables dynamicVariables;
+    protected int outputBufferSize = DEFAULT_OUTPUT_BUFFER_SIZE;
+    protected boolean directSinkOutput;
+    protected int errorCheckpointDepth = Integer.MAX_VALUE;
+    protected String errorReporting = EXCEPTION_ERROR_REPORTING;
+    protected final TypedKey<DaffodilUnparseContentHandlerMemento> daffodilUnparseContentHandlerMementoTypedKey = TypedKey.of();
+    protected DfdlMetrics metrics;
+    protected String schemaUri;
+
+    @Inject
+    protected ApplicationContext applicationContext;
+
+    @Inject
+    protected ResourceConfig resourceConfig;
+
+    public DfdlUnparser(final DataProcessor dataProcessor) {
+        this(() -> dataProcessor);
+    }
+
+    /**
+     * @param dataProcessorSupplier looked up on each document, typically from the <code>DataProcessorFactory</code>, so
+     *                              that a processor evicted from the <code>DataProcessorCache</code> is released
+     */
+    public DfdlUnparser(final Supplier<DataProcessor> dataProcessorSupplier) {
+        this.dataProcessorSupplier = dataProcessorSupplier;
+    }
+
+    @PostConstruct
+    public void postConstruct() {
+        dataProcessorBinder = new DataProcessorBinder(dataProcessorSupplier, resourceConfig);
+        outputBufferSize = Integer.parseInt(resourceConfig.getParameterValue(OUTPUT_BUFFER_SIZE_PARAM, String.class, String.valueOf(DEFAULT_OUTPUT_BUFFER_SIZE)).trim());
+        directSinkOutput = Boolean.parseBoolean(resourceConfig.getParameterValue(DIRECT_SINK_OUTPUT_PARAM, String.class, "false").trim());
+        setErrorCheckpoint(resourceConfig.getParameterValue(ERROR_CHECKPOINT_PARAM, String.class, EVENT_ERROR_CHECKPOINT).trim());
+        setErrorReporting(resourceConfig.getParameterValue(ERROR_REPORTING_PARAM, String.class, EXCEPTION_ERROR_REPORTING).trim());
+        if (schemaUri == null) {
+            schemaUri = resourceConfig.getParameterValue(SCHEMA_URI_PARAM, String.class);
+        }
+        metrics = DfdlMetrics.lookup(applicationContext);
+    }
+
+    @Override
+    public void visitAfter(final Element element, final ExecutionContext executionContext) throws SmooksException {
+        final DaffodilUnparseContentHandlerMemento daffodilUnparseContentHandlerMemento = getOrCreateDaffodilUnparseContentHandlerMemento(element, executionContext);
+        final DaffodilUnparseContentHandler daffodilUnparseContentHandler = daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler();
+        try {
+            if (element.getPrefix() == null || element.getPrefix().equals(XMLConstants.DEFAULT_NS_PREFIX)) {
+                daffodilUnparseContentHandler.endElement(XMLConstants.NULL_NS_URI, element.getLocalName(), element.getLocalName());
+            } else {
+                daffodilUnparseContentHandler.endElement(element.getNamespaceURI(), element.getLocalName(), element.getNodeName());
+            }
+            daffodilUnparseContentHandlerMemento.setDepth(daffodilUnparseContentHandlerMemento.getDepth() - 1);
+
+            if (daffodilUnparseContentHandlerMemento.getDepth() <= errorCheckpointDepth) {
+                throwIfError(daffodilUnparseContentHandler.getUnparseResult(), executionContext);
+            }
+
+            if (daffodilUnparseContentHandlerMemento.isFragmentNode(element)) {
+                executionContext.remove(daffodilUnparseContentHandlerMementoTypedKey);
+                daffodilUnparseContentHandler.endDocument();
+                throwIfError(daffodilUnparseContentHandler.getUnparseResult(), executionContext);
+                try {
+                    daffodilUnparseContentHandlerMemento.getOutputStream().flush();
+                } catch (IOException e) {
+                    throw new UnparserDfdlSmooksException(e);
+                }
+                recordUnparse(daffodilUnparseContentHandlerMemento);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw toUnparserDfdlSmooksException(e, daffodilUnparseContentHandler, executionContext);
+        }
+    }
+
+    /**
+     * The handler of the fragment being unparsed is kept in an execution context slot of its own from the fragment's
+     * start until its end. Every node visited in between belongs to the fragment so the handler is looked up without
+     * walking up to the fragment node.
+     */
+    protected DaffodilUnparseContentHandlerMemento getOrCreateDaffodilUnparseContentHandlerMemento(final Node node, final ExecutionContext executionContext) {
+        final DaffodilUnparseContentHandlerMemento activeDaffodilUnparseContentHandlerMemento = executionContext.get(daffodilUnparseContentHandlerMementoTypedKey);
+        if (activeDaffodilUnparseContentHandlerMemento != null) {
+            return activeDaffodilUnparseContentHandlerMemento;
+        }
+
+        final long startNanos = System.nanoTime();
+        final UnparseEvent unparseEvent = JfrEvents.isAvailable() ? new UnparseEvent() : null;
+        final boolean isRecording = unparseEvent != null && unparseEvent.isEnabled();
+        if (isRecording) {
+            unparseEvent.begin();
+        }
+        final OutputStream outputStream;
+        final DaffodilUnparseContentHandler daffodilUnparseContentHandler;
+        try {
+            // bytes are only counted when someone is listening
+            outputStream = getMetrics().isEnabled() || isRecording ? new CountingOutputStream(createOutputStream(executionContext)) : createOutputStream(executionContext);
+            final WritableByteChannel writableByteChannel = Channels.newChannel(outputStream);
+            daffodilUnparseContentHandler = getDataProcessor(executionContext).newContentHandlerInstance(writableByteChannel);
+        } catch (IOException e) {
+            throw new UnparserDfdlSmooksException(e);
+        }
+        daffodilUnparseContentHandler.startDocument();
+
+        final DaffodilUnparseContentHandlerMemento daffodilUnparseContentHandlerMemento = new DaffodilUnparseContentHandlerMemento(new NodeFragment(node), this);
+        daffodilUnparseContentHandlerMemento.setDaffodilUnparseContentHandler(daffodilUnparseContentHandler);
+        daffodilUnparseContentHandlerMemento.setOutputStream(outputStream);
+        daffodilUnparseContentHandlerMemento.setStartNanos(startNanos);
+        daffodilUnparseContentHandlerMemento.setUnparseEvent(isRecording ? unparseEvent : null);
+        executionContext.put(daffodilUnparseContentHandlerMementoTypedKey, daffodilUnparseContentHandlerMemento);
+
+        return daffodilUnparseContentHandlerMemento;
+    }
+
+    protected void recordUnparse(final DaffodilUnparseContentHandlerMemento daffodilUnparseContentHandlerMemento) {
+        final long bytesOut = daffodilUnparseContentHandlerMemento.getOutputStream() instanceof CountingOutputStream ? ((CountingOutputStream) daffodilUnparseContentHandlerMemento.getOutputStream()).getByteCount() : 0;
+        if (getMetrics().isEnabled()) {
+            getMetrics().recordUnparse(schemaUri, System.nanoTime() - daffodilUnparseContentHandlerMemento.getStartNanos(), bytesOut);
+        }
+        final UnparseEvent unparseEvent = daffodilUnparseContentHandlerMemento.getUnparseEvent();
+        if (unparseEvent != null && unparseEvent.shouldCommit()) {
+            unparseEvent.schemaUri = schemaUri;
+            unparseEvent.bytesOut = bytesOut;
+            unparseEvent.commit();
+        }
+    }
+
+    /**
+     * Daffodil unparses to bytes. When {@link #directSinkOutput} is on and the result is a byte stream, the bytes are
+     * buffered and written straight to it instead of being decoded into the result {@link Writer} only for the writer to
+     * encode them back. Otherwise, and for results like a {@link org.smooks.io.sink.StringSink}, the bytes go through
+     * the {@link Writer}.
+     */
+    protected OutputStream createOutputStream(final ExecutionContext executionContext) throws IOException {
+        final Writer writer = Stream.out(executionContext);
+        final OutputStream sinkOutputStream = getSinkOutputStream(executionContext);
+        if (sinkOutputStream == null) {
+            return WriterOutputStream.builder().setCharset(executionContext.getContentEncoding()).setBufferSize(1024).setWriteImmediately(true).setWriter(writer).get();
+        } else {
+            // keep what was written to the result before this fragment ahead of the fragment
+            writer.flush();
+            return new BufferedOutputStream(sinkOutputStream, outputBufferSize);
+        }
+    }
+
+    /**
+     * Smooks does not tell whether the result writer still encodes to the {@link StreamSink}: a visitor may have
+     * redirected it elsewhere, even to an {@link java.io.OutputStreamWriter} of its own. Writing to the sink is
+     * therefore left for the config to opt in to with <code>directSinkOutput</code>.
+     *
+     * @return the output stream of the first {@link StreamSink}, or <code>null</code> when <code>directSinkOutput</code>
+     * is off or the result is not a byte stream
+     */
+    protected OutputStream getSinkOutputStream(final ExecutionContext executionContext) {
+        if (directSinkOutput) {
+            final List<Sink> sinks = executionContext.get(Sink.SINKS_TYPED_KEY);
+            if (sinks != null) {
+                for (Sink sink : sinks) {
+                    if (sink instanceof StreamSink) {
+                        return ((StreamSink<?>) sink).getOutputStream();
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    protected DfdlMetrics getMetrics() {
+        if (metrics == null) {
+            metrics = DfdlMetrics.lookup(applicationContext);
+        }
+        return metrics;
+    }
+
+    protected AbstractMap<String, String> getVariables(ExecutionContext executionContext) {
+        final List<Parameter<?>> variablesParameters = resourceConfig.getParameters("variables");
+        final AbstractMap<String, String> variables = new HashMap<>();
+        if (variablesParameters != null) {
+            for (Parameter<?> variablesParameter : variablesParameters) {
+                final Map.Entry<String, String> variable = (Map.Entry<String, String>) variablesParameter.getValue();
+                variables.put(variable.getKey(), variable.getValue());
+            }
+        }
+
+        return variables;
+    }
+
+    /**
+     * @return the variables of the document being unparsed, which override the variables configured on this unparser,
+     * or <code>null</code> when the document has none
+     */
+    protected Map<String, String> getMessageVariables(final ExecutionContext executionContext) {
+        return getDynamicVariables().resolve(executionContext, executionContext.get(VARIABLES_TYPED_KEY));
+    }
+
+    /**
+     * The processor is looked up on each document. The configured variables are bound on the first document and again
+     * whenever the lookup hands out a different processor, for instance, after the previous one was evicted from the
+     * cache, so that a document only pays for a {@link DataProcessor} copy when it carries its own variables. Copies
+     * are memoized by {@link DynamicVariables}.
+     */
+    protected DataProcessor getDataProcessor(final ExecutionContext executionContext) {
+        final DataProcessorBinder.Binding binding = getDataProcessorBinder().bind(dataProcessor -> withExternalVariables(dataProcessor, getVariables(executionContext)));
+        dynamicVariables = binding.getDynamicVariables();
+
+        final Map<String, String> variables = getMessageVariables(executionContext);
+        if (variables == null || variables.isEmpty()) {
+            return binding.getDataProcessor();
+        } else {
+            return binding.getDynamicVariables().bind(variables, documentVariables -> withExternalVariables(binding.getDataProcessor(), documentVariables));
+        }
+    }
+
+    protected DataProcessorBinder getDataProcessorBinder() {
+        if (dataProcessorBinder == null) {
+            dataProcessorBinder = new DataProcessorBinder(dataProcessorSupplier, resourceConfig);
+        }
+        return dataProcessorBinder;
+    }
+
+    protected DynamicVariables getDynamicVariables() {
+        if (dynamicVariables == null) {
+            dynamicVariables = new DynamicVariables(resourceConfig);
+        }
+        return dynamicVariables;
+    }
+
+    protected DataProcessor withExternalVariables(final DataProcessor dataProcessor, final Map<String, String> variables) {
+        if (variables.isEmpty()) {
+            return dataProcessor;
+        }
+        try {
+            return dataProcessor.withExternalVariables(variables instanceof AbstractMap ? (AbstractMap<String, String>) variables : new HashMap<>(variables));
+        } catch (ExternalVariableException e) {
+            throw new UnparserDfdlSmooksException(e);
+        }
+    }
+
+    @Override
+    public void visitBefore(Element element, ExecutionContext executionContext) {
+        final DaffodilUnparseContentHandlerMemento daffodilUnparseContentHandlerMemento = getOrCreateDaffodilUnparseContentHandlerMemento(element, executionContext);
+        final DaffodilUnparseContentHandler daffodilUnparseContentHandler = daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler();
+
+        final AttributesImpl attributes = daffodilUnparseContentHandlerMemento.getAttributes();
+        attributes.clear();
+        if (element.hasAttributes()) {
+            final NamedNodeMap namedNodeMap = element.getAttributes();
+            for (int i = 0; i < namedNodeMap.getLength(); i++) {
+                final Node node = namedNodeMap.item(i);
+                if (isUnparsedAttribute(node)) {
+                    if (node.getPrefix() == null || node.getPrefix().equals(XMLConstants.DEFAULT_NS_PREFIX)) {
+                        attributes.addAttribute(XMLConstants.NULL_NS_URI, node.getLocalName(), node.getNodeName(), CDATA_ATTRIBUTE_TYPE, node.getNodeValue());
+                    } else {
+                        attributes.addAttribute(node.getNamespaceURI(), node.getLocalName(), node.getNodeName(), CDATA_ATTRIBUTE_TYPE, node.getNodeValue());
+                    }
+                }
+            }
+        }
+
+        try {
+            if (element.getPrefix() == null || element.getPrefix().equals(XMLConstants.DEFAULT_NS_PREFIX)) {
+                daffodilUnparseContentHandler.startElement(XMLConstants.NULL_NS_URI, element.getLocalName(), element.getLocalName(), attributes);
+            } else {
+                daffodilUnparseContentHandler.startElement(element.getNamespaceURI(), element.getLocalName(), element.getNodeName(), attributes);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw toUnparserDfdlSmooksException(e, daffodilUnparseContentHandler, executionContext);
+        }
+        daffodilUnparseContentHandlerMemento.setDepth(daffodilUnparseContentHandlerMemento.getDepth() + 1);
+
+        if (errorCheckpointDepth == Integer.MAX_VALUE) {
+            throwIfError(daffodilUnparseContentHandler.getUnparseResult(), executionContext);
+        }
+    }
+
+    @Override
+    public void visitChildText(final CharacterData characterData, final ExecutionContext executionContext) {
+        final DaffodilUnparseContentHandlerMemento daffodilUnparseContentHandlerMemento = getOrCreateDaffodilUnparseContentHandlerMemento(characterData, executionContext);
+        final DaffodilUnparseContentHandler daffodilUnparseContentHandler = daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler();
+        final String data = characterData.getData();
+        final char[] chars = daffodilUnparseContentHandlerMemento.getChars(data.length());
+        data.getChars(0, data.length(), chars, 0);
+        try {
+            daffodilUnparseContentHandler.characters(chars, 0, data.length());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw toUnparserDfdlSmooksException(e, daffodilUnparseContentHandler, executionContext);
+        }
+
+        if (errorCheckpointDepth == Integer.MAX_VALUE) {
+            throwIfError(daffodilUnparseContentHandler.getUnparseResult(), executionContext);
+        }
+    }
+
+    /**
+     * Daffodil reads no attributes from the infoset other than the namespace declarations and <code>xsi:nil</code>
+     * so the rest are not forwarded.
+     */
+    protected boolean isUnparsedAttribute(final Node attribute) {
+        final String nodeName = attribute.getNodeName();
+        if (nodeName.startsWith(XMLConstants.XMLNS_ATTRIBUTE)) {
+            return nodeName.length() == XMLConstants.XMLNS_ATTRIBUTE.length() || nodeName.charAt(XMLConstants.XMLNS_ATTRIBUTE.length()) == ':';
+        } else {
+            return NIL_ATTRIBUTE.equals(attribute.getLocalName()) && XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(attribute.getNamespaceURI());
+        }
+    }
+
+    @Override
+    public void visitChildElement(Element element, ExecutionContext executionContext) {
+
+    }
+
+    /**
+     * Discards the handler of the fragment on error so that the next fragment is unparsed with a handler of its own.
+     */
+    protected void throwIfError(final UnparseResult unparseResult, final ExecutionContext executionContext) {
+        if (unparseResult != null) {
+            final boolean isMetricsEnabled = getMetrics().isEnabled();
+            for (Diagnostic diagnostic : unparseResult.getDiagnostics()) {
+                if (isMetricsEnabled) {
+                    getMetrics().recordDiagnostic(schemaUri, diagnostic);
+                }
+                if (diagnostic.isError()) {
+                    executionContext.remove(daffodilUnparseContentHandlerMementoTypedKey);
+                    throw reject(new DfdlError(diagnostic), executionContext);
+                } else if (LOGGER.isWarnEnabled()) {
+                    LOGGER.warn(diagnostic.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Daffodil throws a {@link org.xml.sax.SAXException} from the event following an error when the error was not
+     * checked beforehand. The error is reported from the unparse result whenever possible.
+     */
+    protected UnparserDfdlSmooksException toUnparserDfdlSmooksException(final Exception exception, final DaffodilUnparseContentHandler daffodilUnparseContentHandler, final ExecutionContext executionContext) {
+        throwIfError(daffodilUnparseContentHandler.getUnparseResult(), executionContext);
+        executionContext.remove(daffodilUnparseContentHandlerMementoTypedKey);
+        return reject(new DfdlError(exception), executionContext);
+    }
+
+    /**
+     * Puts the error rejecting the document in the execution context, where it can be looked up without inspecting the
+     * exception. In <code>stackless</code> error reporting, the exception is created without a stack trace and formats
+     * its message on demand so that rejecting a document costs about as much as accepting it.
+     *
+     * @return the exception to throw
+     */
+    protected UnparserDfdlSmooksException reject(final DfdlError dfdlError, final ExecutionContext executionContext) {
+        executionContext.put(ERROR_TYPED_KEY, dfdlError);
+        if (STACKLESS_ERROR_REPORTING.equals(errorReporting)) {
+            return new StacklessUnparserDfdlSmooksException(dfdlError);
+        } else if (dfdlError.getDiagnostic() == null) {
+            return new UnparserDfdlSmooksException(dfdlError.getCause());
+        } else {
+            return new UnparserDfdlSmooksException(dfdlError.getMessage(), dfdlError.getCause());
+        }
+    }
+
+    public DataProcessor getDataProcessor() {
+        return dataProcessorSupplier.get();
+    }
+
+    public boolean isDirectSinkOutput() {
+        return directSinkOutput;
+    }
+
+    public void setDirectSinkOutput(final boolean directSinkOutput) {
+        this.directSinkOutput = directSinkOutput;
+    }
+
+    public int getOutputBufferSize() {
+        return outputBufferSize;
+    }
+
+    public void setOutputBufferSize(final int outputBufferSize) {
+        this.outputBufferSize = outputBufferSize;
+    }
+
+    /**
+     * @param errorCheckpoint when to check for unparse errors: <code>event</code> checks after every event (fail fast),
+     *                        <code>document</code> checks once the fragment is unparsed, while a non-negative number
+     *                        checks whenever an element at that depth or shallower closes, the fragment element being
+     *                        at depth 0
+     */
+    public void setErrorCheckpoint(final String errorCheckpoint) {
+        if (errorCheckpoint.equals(EVENT_ERROR_CHECKPOINT)) {
+            errorCheckpointDepth = Integer.MAX_VALUE;
+        } else if (errorCheckpoint.equals(DOCUMENT_ERROR_CHECKPOINT)) {
+            errorCheckpointDepth = -1;
+        } else {
+            final int depth = Integer.parseInt(errorCheckpoint);
+            if (depth < 0) {
+                throw new IllegalArgumentException(String.format("Invalid error checkpoint [%s]", errorCheckpoint));
+            }
+            errorCheckpointDepth = depth;
+        }
+    }
+
+    /**
+     * @param errorReporting how documents are rejected: <code>exception</code> throws an exception with a stack trace
+     *                       while <code>stackless</code> throws an exception without one
+     */
+    public void setErrorReporting(final String errorReporting) {
+        if (!errorReporting.equals(EXCEPTION_ERROR_REPORTING) && !errorReporting.equals(STACKLESS_ERROR_REPORTING)) {
+            throw new IllegalArgumentException(String.format("Invalid error reporting [%s]", errorReporting));
+        }
+        this.errorReporting = errorReporting;
+    }
+
+    public String getSchemaUri() {
+        return schemaUri;
+    }
+
+    public void setSchemaUri(String schemaUri) {
+        this.schemaUri = schemaUri;
+    }
+
+    public ApplicationContext getApplicationContext() {
+        return applicationContext;
+    }
+
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    public ResourceConfig getResourceConfig() {
+        return resourceConfig;
+    }
+
+    public void setResourceConfig(ResourceConfig resourceConfig) {
+        this.resourceConfig = resourceConfig;
+    }
+}
@@ -45,22 +45,33 @@ package org.smooks.cartridges.dfdl.unparser;
 import org.smooks.api.ApplicationContext;
 import org.smooks.api.SmooksConfigException;
 import org.smooks.api.delivery.ContentHandlerFactory;
+import org.smooks.api.lifecycle.ContentDeliveryConfigLifecycle;
 import org.smooks.api.resource.config.ResourceConfig;
 import org.smooks.cartridges.dfdl.DataProcessorFactory;
+import org.smooks.cartridges.dfdl.DataProcessorWarmUp;
 import org.smooks.engine.injector.Scope;
 import org.smooks.engine.lifecycle.PostConstructLifecyclePhase;
 import org.smooks.engine.lookup.LifecycleManagerLookup;
 
 import javax.inject.Inject;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class DfdlUnparserContentHandlerFactory<T extends DfdlUnparser> implements ContentHandlerFactory<DfdlUnparser> {
+public class DfdlUnparserContentHandlerFactory<T extends DfdlUnparser> implements ContentHandlerFactory<DfdlUnparser>, ContentDeliveryConfigLifecycle {
 
     @Inject
     protected ApplicationContext applicationContext;
 
+    private final AtomicBoolean compileStarted = new AtomicBoolean();
+
     @Override
     public T create(final ResourceConfig resourceConfig) throws SmooksConfigException {
         try {
+            if (DataProcessorWarmUp.isCompileOnStartup(applicationContext)) {
+                DataProcessorWarmUp.warmUp(applicationContext);
+            } else if (compileStarted.compareAndSet(false, true)) {
+                // the unparser resources are created one after the other so compile their DFDL schemas concurrently up front
+                DataProcessorWarmUp.compile(applicationContext, dfdlResourceConfig -> getType().equals(dfdlResourceConfig.getResourceType()));
+            }
             final String dataProcessorFactoryClassName = resourceConfig.getParameterValue("dataProcessorFactory", String.class);
             final Class<? extends DataProcessorFactory> dataProcessorFactoryClass = (Class<? extends DataProcessorFactory>) Class.forName(dataProcessorFactoryClassName);
             final DataProcessorFactory dataProcessorFactory = dataProcessorFactoryClass.newInstance();
@@ -75,6 +86,23 @@ public class DfdlUnparserContentHandlerFactory<T extends DfdlUnparser> implement
         }
     }
 
+    @Override
+    public void onContentHandlersCreated() {
+        if (DataProcessorWarmUp.isCompileOnStartup(applicationContext)) {
+            DataProcessorWarmUp.warmUp(applicationContext);
+        }
+    }
+
+    @Override
+    public void onContentDeliveryBuilderCreated() {
+
+    }
+
+    @Override
+    public void onContentDeliveryConfigCreated() {
+
+    }
+
     @Override
     public String getType() {
         return "dfdl";
@@ -89,6 +117,8 @@ public class DfdlUnparserContentHandlerFactory<T extends DfdlUnparser> implement
     }
 
     protected T newDfdlUnparser(DataProcessorFactory dataProcessorFactory) {
-        return (T) new DfdlUnparser(dataProcessorFactory.createDataProcessor());
+        // fail on a broken schema when the config is created rather than on the first document
+        dataProcessorFactory.createDataProcessor();
+        return (T) new DfdlUnparser(dataProcessorFactory::createDataProcessor);
     }
 }
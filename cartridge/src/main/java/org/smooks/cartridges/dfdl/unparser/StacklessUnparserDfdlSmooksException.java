@@ -2,7 +2,7 @@
  * ========================LICENSE_START=================================
  * Smooks DFDL Cartridge
  * %%
- * Copyright (C) 2020 - 2021 Smooks
+ * Copyright (C) 2020 Smooks
  * %%
  * Licensed under the terms of the Apache License Version 2.0, or
  * the GNU Lesser General Public License version 3.0 or later.
@@ -42,39 +42,36 @@
  */
 package org.smooks.cartridges.dfdl.unparser;
 
-import org.apache.daffodil.japi.DaffodilUnparseContentHandler;
-import org.smooks.api.TypedKey;
-import org.smooks.api.delivery.fragment.Fragment;
-import org.smooks.api.memento.Memento;
-import org.smooks.api.resource.visitor.Visitor;
-import org.smooks.engine.memento.VisitorMemento;
+import org.smooks.cartridges.dfdl.DfdlError;
 
-class DaffodilUnparseContentHandlerMemento extends VisitorMemento<DaffodilUnparseContentHandler> {
-    protected static final TypedKey<String> DAFFODIL_UNPARSE_CONTENT_HANDLER = TypedKey.of();
-    protected DaffodilUnparseContentHandler daffodilUnparseContentHandler;
-
-    public DaffodilUnparseContentHandlerMemento(final Fragment<?> fragment, final Visitor visitor) {
-        super(fragment, visitor, DAFFODIL_UNPARSE_CONTENT_HANDLER, null);
-    }
+/**
+ * {@link UnparserDfdlSmooksException} which skips capturing the stack trace, by far the costliest part of creating an
+ * exception, for when failures are expected to be frequent or are only used to unwind the unparse.
+ */
+class StacklessUnparserDfdlSmooksException extends UnparserDfdlSmooksException {
 
-    @Override
-    public VisitorMemento<DaffodilUnparseContentHandler> copy() {
-        final DaffodilUnparseContentHandlerMemento daffodilUnparseContentHandlerMemento = new DaffodilUnparseContentHandlerMemento(fragment, visitor);
-        daffodilUnparseContentHandlerMemento.setDaffodilUnparseContentHandler(daffodilUnparseContentHandler);
+    private final DfdlError dfdlError;
 
-        return daffodilUnparseContentHandlerMemento;
+    StacklessUnparserDfdlSmooksException(final String message, final Throwable cause) {
+        super(message, cause);
+        dfdlError = null;
     }
 
-    @Override
-    public void restore(final Memento memento) {
-        this.setDaffodilUnparseContentHandler(((DaffodilUnparseContentHandlerMemento) memento).getDaffodilUnparseContentHandler());
+    /**
+     * The message is formatted from the error on demand.
+     */
+    StacklessUnparserDfdlSmooksException(final DfdlError dfdlError) {
+        super(null, dfdlError.getCause());
+        this.dfdlError = dfdlError;
     }
 
-    public DaffodilUnparseContentHandler getDaffodilUnparseContentHandler() {
-        return daffodilUnparseContentHandler;
+    @Override
+    public String getMessage() {
+        return dfdlError == null ? super.getMessage() : dfdlError.getMessage();
     }
 
-    public void setDaffodilUnparseContentHandler(final DaffodilUnparseContentHandler daffodilUnparseContentHandler) {
-        this.daffodilUnparseContentHandler = daffodilUnparseContentHandler;
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
     }
 }
@@ -0,0 +1,168 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 - 2024 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl;
+
+import org.apache.daffodil.japi.DataProcessor;
+import org.apache.daffodil.japi.ValidationMode;
+import org.junit.jupiter.api.Test;
+import org.smooks.engine.resource.config.DefaultResourceConfig;
+import org.smooks.testkit.MockApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DataProcessorFactoryTestCase {
+
+    @Test
+    public void testCreateDataProcessorGivenFileSchemaUri() {
+        DataProcessorFactory dataProcessorFactory = new DataProcessorFactory();
+        dataProcessorFactory.setSchemaUri("src/test/resources/csv.dfdl.xsd");
+        dataProcessorFactory.setApplicationContext(new MockApplicationContext());
+        dataProcessorFactory.setResourceConfig(new DefaultResourceConfig());
+
+        dataProcessorFactory.createDataProcessor();
+    }
+
+    @Test
+    public void testCreateDataProcessorGivenClasspathSchemaUriWithRootSlash() {
+        DataProcessorFactory dataProcessorFactory = new DataProcessorFactory();
+        dataProcessorFactory.setSchemaUri("/csv.dfdl.xsd");
+        dataProcessorFactory.setApplicationContext(new MockApplicationContext());
+        dataProcessorFactory.setResourceConfig(new DefaultResourceConfig());
+
+        dataProcessorFactory.createDataProcessor();
+    }
+
+    @Test
+    public void testCreateDataProcessorGivenClasspathSchemaUriWithoutRootSlash() {
+        DataProcessorFactory dataProcessorFactory = new DataProcessorFactory();
+        dataProcessorFactory.setSchemaUri("csv.dfdl.xsd");
+        dataProcessorFactory.setApplicationContext(new MockApplicationContext());
+        dataProcessorFactory.setResourceConfig(new DefaultResourceConfig());
+
+        dataProcessorFactory.createDataProcessor();
+    }
+
+    @Test
+    public void testCompileOrGetGivenConcurrentCallers() throws Exception {
+        AtomicInteger compilations = new AtomicInteger();
+        CountDownLatch compilationLatch = new CountDownLatch(1);
+        DataProcessorFactory dataProcessorFactory = new DataProcessorFactory();
+        dataProcessorFactory.setApplicationContext(new MockApplicationContext());
+        DfdlSchema dfdlSchema = new DfdlSchema(getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Off, false, false, null, null, false) {
+            @Override
+            public DataProcessor compile() throws Throwable {
+                compilations.incrementAndGet();
+                compilationLatch.await();
+                return super.compile();
+            }
+        };
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<DataProcessor> firstFuture = executorService.submit(() -> dataProcessorFactory.compileOrGet(dfdlSchema));
+            Future<DataProcessor> secondFuture = executorService.submit(() -> dataProcessorFactory.compileOrGet(dfdlSchema));
+            compilationLatch.countDown();
+
+            assertSame(firstFuture.get(), secondFuture.get());
+            assertEquals(1, compilations.get());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompileOrGetGivenDifferentDistinguishedRootNodes() throws Exception {
+        DataProcessorFactory dataProcessorFactory = new DataProcessorFactory();
+        dataProcessorFactory.setApplicationContext(new MockApplicationContext());
+        DataProcessor fileDataProcessor = dataProcessorFactory.compileOrGet(new DfdlSchema(getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Off, false, false, null, null, false));
+        DataProcessor recordDataProcessor = dataProcessorFactory.compileOrGet(new DfdlSchema(getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Off, false, false, "{http://example.com}record", null, false));
+
+        assertNotSame(fileDataProcessor, recordDataProcessor);
+        assertEquals(2, dataProcessorFactory.getDataProcessorCache().size());
+    }
+
+    @Test
+    public void testCompileOrGetWeighsBySchemaSize() throws Exception {
+        DataProcessorFactory dataProcessorFactory = new DataProcessorFactory();
+        dataProcessorFactory.setApplicationContext(new MockApplicationContext());
+        DfdlSchema dfdlSchema = new DfdlSchema(getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Off, false, true, null, null, false);
+        dataProcessorFactory.compileOrGet(dfdlSchema);
+
+        assertTrue(dfdlSchema.getSize() > Files.size(Paths.get(getClass().getResource("/csv.dfdl.xsd").toURI())));
+        assertEquals(dfdlSchema.getSize(), ((DefaultDataProcessorCache) dataProcessorFactory.getDataProcessorCache()).weight());
+    }
+
+    @Test
+    public void testCompileOrGetGivenCompilationError() throws Exception {
+        AtomicInteger compilations = new AtomicInteger();
+        DataProcessorFactory dataProcessorFactory = new DataProcessorFactory();
+        dataProcessorFactory.setApplicationContext(new MockApplicationContext());
+        DfdlSchema dfdlSchema = new DfdlSchema(getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Off, false, false, null, null, false) {
+            @Override
+            public DataProcessor compile() throws Throwable {
+                if (compilations.incrementAndGet() == 1) {
+                    throw new IOException();
+                }
+                return super.compile();
+            }
+        };
+
+        assertThrows(DfdlSmooksException.class, () -> dataProcessorFactory.compileOrGet(dfdlSchema));
+        assertNotNull(dataProcessorFactory.compileOrGet(dfdlSchema));
+        assertEquals(2, compilations.get());
+    }
+}
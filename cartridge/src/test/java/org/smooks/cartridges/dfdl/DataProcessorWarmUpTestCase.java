@@ -0,0 +1,196 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl;
+
+import org.apache.daffodil.japi.DataProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.smooks.Smooks;
+import org.smooks.api.ExecutionContext;
+import org.smooks.support.SmooksUtil;
+import org.smooks.support.StreamUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.smooks.testkit.Assertions.compareCharStreams;
+
+public class DataProcessorWarmUpTestCase extends AbstractTestCase {
+
+    private Smooks smooks;
+
+    @Override
+    public void doBeforeEach() {
+        smooks = new Smooks();
+    }
+
+    @AfterEach
+    public void afterEach() {
+        smooks.close();
+    }
+
+    @Test
+    public void testWarmUpGivenCompileOnStartupParam() throws Exception {
+        smooks.addResourceConfigs("/smooks-compile-on-startup-config.xml");
+        smooks.createExecutionContext();
+
+        CompletableFuture<Void> warmUp = DataProcessorWarmUp.getWarmUp(smooks.getApplicationContext());
+        assertNotNull(warmUp);
+        warmUp.join();
+        assertTrue(DataProcessorWarmUp.isReady(smooks.getApplicationContext()));
+        DataProcessorCache dataProcessorCache = smooks.getApplicationContext().getRegistry().lookup(DataProcessorFactory.class);
+        assertEquals(1, dataProcessorCache.size());
+
+        String result = SmooksUtil.filterAndSerialize(smooks.createExecutionContext(), getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), smooks);
+        assertTrue(compareCharStreams(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), "UTF-8"), result));
+        assertEquals(1, dataProcessorCache.size());
+    }
+
+    @Test
+    public void testWarmUpGivenCompileOnStartupParamAndParserOnly() throws Exception {
+        List<Thread> loadingThreads = new CopyOnWriteArrayList<>();
+        DataProcessorCache dataProcessorCache = new DefaultDataProcessorCache() {
+            @Override
+            public DataProcessor get(String key, Loader loader) {
+                return super.get(key, () -> {
+                    loadingThreads.add(Thread.currentThread());
+                    return loader.load();
+                });
+            }
+        };
+        smooks.getApplicationContext().getRegistry().registerObject(DataProcessorFactory.class, dataProcessorCache);
+        smooks.addResourceConfigs("/smooks-parser-compile-on-startup-config.xml");
+        ExecutionContext executionContext = smooks.createExecutionContext();
+
+        CompletableFuture<Void> warmUp = DataProcessorWarmUp.getWarmUp(smooks.getApplicationContext());
+        assertNotNull(warmUp);
+        warmUp.join();
+        assertEquals(1, loadingThreads.size());
+        assertNotSame(Thread.currentThread(), loadingThreads.get(0));
+
+        String result = SmooksUtil.filterAndSerialize(executionContext, getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), smooks);
+        assertTrue(result.startsWith("<ex:file"));
+        assertEquals(1, loadingThreads.size());
+    }
+
+    @Test
+    public void testWarmUpGivenNoCompileOnStartupParam() throws Exception {
+        smooks.addResourceConfigs("/smooks-config.xml");
+        smooks.createExecutionContext();
+
+        assertNull(DataProcessorWarmUp.getWarmUp(smooks.getApplicationContext()));
+        assertFalse(DataProcessorWarmUp.isReady(smooks.getApplicationContext()));
+    }
+
+    @Test
+    public void testWarmUpGivenExecutor() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            smooks.addResourceConfigs("/smooks-config.xml");
+            Executor executor = command -> {
+                executions.incrementAndGet();
+                executorService.execute(command);
+            };
+            smooks.getApplicationContext().getRegistry().registerObject(DataProcessorWarmUp.EXECUTOR_TYPED_KEY, executor);
+
+            CompletableFuture<Void> warmUp = DataProcessorWarmUp.warmUp(smooks.getApplicationContext());
+            assertSame(warmUp, DataProcessorWarmUp.warmUp(smooks.getApplicationContext()));
+            warmUp.join();
+
+            assertEquals(1, executions.get());
+            assertTrue(DataProcessorWarmUp.isReady(smooks.getApplicationContext()));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompileGivenIdenticalSchemas() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            smooks.addResourceConfigs("/smooks-parallel-compile-config.xml");
+            Executor executor = command -> {
+                executions.incrementAndGet();
+                executorService.execute(command);
+            };
+            smooks.getApplicationContext().getRegistry().registerObject(DataProcessorWarmUp.EXECUTOR_TYPED_KEY, executor);
+
+            DataProcessorWarmUp.compile(smooks.getApplicationContext(), resourceConfig -> true).join();
+
+            assertEquals(2, executions.get());
+            DataProcessorCache dataProcessorCache = smooks.getApplicationContext().getRegistry().lookup(DataProcessorFactory.class);
+            assertEquals(2, dataProcessorCache.size());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompileGivenUnparsers() throws Exception {
+        smooks.addResourceConfigs("/smooks-parallel-compile-config.xml");
+        smooks.createExecutionContext();
+
+        DataProcessorCache dataProcessorCache = smooks.getApplicationContext().getRegistry().lookup(DataProcessorFactory.class);
+        assertEquals(2, dataProcessorCache.size());
+        assertNull(DataProcessorWarmUp.getWarmUp(smooks.getApplicationContext()));
+
+        DaemonPool compilerPool = (DaemonPool) smooks.getApplicationContext().getRegistry().lookup(DataProcessorWarmUp.EXECUTOR_TYPED_KEY);
+        assertEquals(2, compilerPool.getParallelism());
+        smooks.close();
+        assertTrue(compilerPool.isShutdown());
+    }
+}
@@ -0,0 +1,220 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl;
+
+import org.apache.daffodil.japi.DataProcessor;
+import org.apache.daffodil.japi.ValidationMode;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.smooks.Smooks;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DefaultDataProcessorCacheTestCase extends AbstractTestCase {
+
+    private static DataProcessor dataProcessor;
+
+    @BeforeAll
+    public static void beforeAll() throws Throwable {
+        dataProcessor = new DfdlSchema(DefaultDataProcessorCacheTestCase.class.getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Off, false, false, null, null, false).compile();
+    }
+
+    @Test
+    public void testGetGivenMaxEntriesAndLruEvictionPolicy() {
+        DefaultDataProcessorCache dataProcessorCache = new DefaultDataProcessorCache(2, Long.MAX_VALUE, dataProcessor -> 1, DefaultDataProcessorCache.EvictionPolicy.LRU, null);
+        dataProcessorCache.get("a", () -> dataProcessor);
+        dataProcessorCache.get("b", () -> dataProcessor);
+        dataProcessorCache.get("a", () -> dataProcessor);
+        dataProcessorCache.get("c", () -> dataProcessor);
+
+        assertEquals(2, dataProcessorCache.size());
+        assertNotNull(dataProcessorCache.getIfPresent("a"));
+        assertNull(dataProcessorCache.getIfPresent("b"));
+        assertNotNull(dataProcessorCache.getIfPresent("c"));
+        assertEquals(1, dataProcessorCache.getStats().getEvictionCount());
+    }
+
+    @Test
+    public void testGetGivenMaxEntriesAndLfuEvictionPolicy() {
+        DefaultDataProcessorCache dataProcessorCache = new DefaultDataProcessorCache(2, Long.MAX_VALUE, dataProcessor -> 1, DefaultDataProcessorCache.EvictionPolicy.LFU, null);
+        dataProcessorCache.get("a", () -> dataProcessor);
+        dataProcessorCache.get("a", () -> dataProcessor);
+        dataProcessorCache.get("b", () -> dataProcessor);
+        dataProcessorCache.get("b", () -> dataProcessor);
+        dataProcessorCache.get("b", () -> dataProcessor);
+        dataProcessorCache.get("c", () -> dataProcessor);
+
+        assertEquals(2, dataProcessorCache.size());
+        assertNotNull(dataProcessorCache.getIfPresent("b"));
+        assertNotNull(dataProcessorCache.getIfPresent("c"));
+        assertNull(dataProcessorCache.getIfPresent("a"));
+    }
+
+    @Test
+    public void testGetGivenMaxWeight() {
+        Map<String, Long> weights = new HashMap<>();
+        DefaultDataProcessorCache dataProcessorCache = new DefaultDataProcessorCache(Long.MAX_VALUE, 10, dataProcessor -> weights.remove("next"), DefaultDataProcessorCache.EvictionPolicy.LRU, null);
+        weights.put("next", 4L);
+        dataProcessorCache.get("a", () -> dataProcessor);
+        weights.put("next", 4L);
+        dataProcessorCache.get("b", () -> dataProcessor);
+        assertEquals(8, dataProcessorCache.weight());
+
+        weights.put("next", 5L);
+        dataProcessorCache.get("c", () -> dataProcessor);
+
+        assertEquals(9, dataProcessorCache.weight());
+        assertNull(dataProcessorCache.getIfPresent("a"));
+        assertNotNull(dataProcessorCache.getIfPresent("b"));
+        assertNotNull(dataProcessorCache.getIfPresent("c"));
+    }
+
+    @Test
+    public void testGetGivenLoaderWeight() {
+        DefaultDataProcessorCache dataProcessorCache = new DefaultDataProcessorCache(Long.MAX_VALUE, 10, dataProcessor -> {
+            throw new AssertionError();
+        }, DefaultDataProcessorCache.EvictionPolicy.LRU, null);
+        dataProcessorCache.get("a", new DataProcessorCache.Loader() {
+            @Override
+            public DataProcessor load() {
+                return dataProcessor;
+            }
+
+            @Override
+            public long weigh(DataProcessor dataProcessor) {
+                return 7;
+            }
+        });
+
+        assertEquals(7, dataProcessorCache.weight());
+    }
+
+    @Test
+    public void testGetGivenExpireAfterAccess() {
+        AtomicLong ticker = new AtomicLong();
+        DefaultDataProcessorCache dataProcessorCache = new DefaultDataProcessorCache(Long.MAX_VALUE, Long.MAX_VALUE, dataProcessor -> 1, DefaultDataProcessorCache.EvictionPolicy.LRU, Duration.ofNanos(10), ticker::get);
+        dataProcessorCache.get("a", () -> dataProcessor);
+        ticker.set(9);
+        assertNotNull(dataProcessorCache.getIfPresent("a"));
+        ticker.set(18);
+        assertNotNull(dataProcessorCache.getIfPresent("a"));
+        ticker.set(28);
+        assertNull(dataProcessorCache.getIfPresent("a"));
+
+        assertEquals(0, dataProcessorCache.size());
+        assertEquals(1, dataProcessorCache.getStats().getEvictionCount());
+    }
+
+    @Test
+    public void testGetStats() {
+        AtomicLong ticker = new AtomicLong();
+        DefaultDataProcessorCache dataProcessorCache = new DefaultDataProcessorCache(Long.MAX_VALUE, Long.MAX_VALUE, dataProcessor -> 1, DefaultDataProcessorCache.EvictionPolicy.LRU, null, ticker::get);
+        DataProcessorCache.Loader failingLoader = () -> {
+            ticker.addAndGet(100);
+            throw new IOException();
+        };
+        assertThrows(DfdlSmooksException.class, () -> dataProcessorCache.get("a", failingLoader));
+        assertEquals(0, dataProcessorCache.size());
+
+        assertSame(dataProcessor, dataProcessorCache.get("a", () -> {
+            ticker.addAndGet(300);
+            return dataProcessor;
+        }));
+        assertSame(dataProcessor, dataProcessorCache.get("a", () -> dataProcessor));
+
+        DataProcessorCacheStats stats = dataProcessorCache.getStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(1, stats.getLoadSuccessCount());
+        assertEquals(1, stats.getLoadFailureCount());
+        assertEquals(400, stats.getTotalLoadTime());
+        assertEquals(200.0, stats.getAverageLoadPenalty());
+        assertEquals(1.0 / 3, stats.getHitRate());
+    }
+
+    @Test
+    public void testSavedSizeWeigher() {
+        assertTrue(DefaultDataProcessorCache.SAVED_SIZE_WEIGHER.applyAsLong(dataProcessor) > 0);
+    }
+
+    @Test
+    public void testSavedSizeWeigherGivenUnsavableDataProcessor() {
+        DataProcessor unsavableDataProcessor = new DataProcessor(null) {
+            @Override
+            public void save(WritableByteChannel output) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        assertEquals(DefaultDataProcessorCache.UNKNOWN_WEIGHT, DefaultDataProcessorCache.SAVED_SIZE_WEIGHER.applyAsLong(unsavableDataProcessor));
+    }
+
+    @Test
+    public void testGetGivenGlobalParams() throws Exception {
+        Smooks smooks = new Smooks();
+        try {
+            smooks.addResourceConfigs("/smooks-cache-config.xml");
+            smooks.createExecutionContext();
+
+            DefaultDataProcessorCache dataProcessorCache = smooks.getApplicationContext().getRegistry().lookup(DataProcessorFactory.class);
+            assertEquals(1, dataProcessorCache.getMaxEntries());
+            assertEquals(DefaultDataProcessorCache.EvictionPolicy.LFU, dataProcessorCache.getEvictionPolicy());
+            assertEquals(1, dataProcessorCache.size());
+            assertTrue(dataProcessorCache.getStats().getEvictionCount() >= 1);
+        } finally {
+            smooks.close();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl;
+
+import org.apache.daffodil.japi.DataProcessor;
+import org.apache.daffodil.japi.ValidationMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DfdlSchemaTestCase extends AbstractTestCase {
+
+    @Test
+    public void testCompileHitsCacheGivenCacheOnDiskIsSetToTrue() throws Throwable {
+        CountDownLatch countDownLatch = new CountDownLatch(2);
+        DfdlSchema dfdlSchema = new DfdlSchema(this.getClass().getResource("/csv.dfdl.xsd").toURI(), TestKit.getRandomItem(TestKit.getCacheOnDiskSupportedValidationModes()), true, ThreadLocalRandom.current().nextBoolean(), null, null, false) {
+            @Override
+            protected DataProcessor compileSource() throws Throwable {
+                countDownLatch.countDown();
+                return super.compileSource();
+            }
+        };
+        dfdlSchema.compile();
+        assertEquals(1, countDownLatch.getCount());
+        dfdlSchema.compile();
+        assertEquals(1, countDownLatch.getCount());
+    }
+
+    @Test
+    public void testGetNameGivenDifferentDistinguishedRootNodesOrSchematronSettings() throws Exception {
+        URI uri = getClass().getResource("/csv.dfdl.xsd").toURI();
+        List<String> names = new ArrayList<>();
+        names.add(new DfdlSchema(uri, ValidationMode.Off, false, false, null, null, false).getName());
+        names.add(new DfdlSchema(uri, ValidationMode.Off, false, false, "{http://example.com}record", null, false).getName());
+        names.add(new DfdlSchema(uri, ValidationMode.Off, false, false, null, null, true).getName());
+        names.add(new DfdlSchema(uri, ValidationMode.Off, false, false, null, "/schematron/never-fails.sch", true).getName());
+
+        assertEquals(names.size(), names.stream().distinct().count());
+        assertEquals(names.get(1), new DfdlSchema(uri, ValidationMode.Off, false, false, "{http://example.com}record", null, false).getName());
+    }
+
+    @Test
+    public void testCompileGivenCacheOnDiskIsSetToTrue() throws Throwable {
+        DfdlSchema dfdlSchema = new DfdlSchema(this.getClass().getResource("/csv.dfdl.xsd").toURI(), TestKit.getRandomItem(TestKit.getCacheOnDiskSupportedValidationModes()), true, ThreadLocalRandom.current().nextBoolean(), null, null, false);
+        dfdlSchema.compile();
+        assertTrue(new File(DfdlSchema.WORKING_DIRECTORY + "/csv.dfdl.xsd-" + dfdlSchema.getFingerprint() + ".dat").exists());
+    }
+
+    @Test
+    public void testCompileGivenCacheOnDiskIsSetToFalse() throws Throwable {
+        DfdlSchema dfdlSchema = new DfdlSchema(this.getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.values()[ThreadLocalRandom.current().nextInt(ValidationMode.values().length)], false, ThreadLocalRandom.current().nextBoolean(), null, null, false);
+        dfdlSchema.compile();
+        assertFalse(new File(DfdlSchema.WORKING_DIRECTORY + "/csv.dfdl.xsd-" + dfdlSchema.getFingerprint() + ".dat").exists());
+    }
+
+    @Test
+    public void testCompileGivenCacheOnDiskIsSetToTrueAndIncludedSchemaChanged(@TempDir Path tempDir) throws Throwable {
+        Path schemaPath = writeSchemaWithInclude(tempDir);
+        CountDownLatch countDownLatch = new CountDownLatch(3);
+        new DfdlSchema(schemaPath.toUri(), ValidationMode.Off, true, false, null, null, false) {
+            @Override
+            protected DataProcessor compileSource() throws Throwable {
+                countDownLatch.countDown();
+                return super.compileSource();
+            }
+        }.compile();
+        assertEquals(2, countDownLatch.getCount());
+
+        Files.write(tempDir.resolve("record.dfdl.xsd"), new String(Files.readAllBytes(tempDir.resolve("record.dfdl.xsd")), StandardCharsets.UTF_8).replace("\"item\"", "\"field\"").getBytes(StandardCharsets.UTF_8));
+        new DfdlSchema(schemaPath.toUri(), ValidationMode.Off, true, false, null, null, false) {
+            @Override
+            protected DataProcessor compileSource() throws Throwable {
+                countDownLatch.countDown();
+                return super.compileSource();
+            }
+        }.compile();
+        assertEquals(1, countDownLatch.getCount());
+    }
+
+    @Test
+    public void testCompileGivenPrecompiledSchemaOnClasspath(@TempDir Path tempDir) throws Throwable {
+        CountDownLatch countDownLatch = new CountDownLatch(3);
+        Path binSchemaPath = new DfdlSchema(this.getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Off, false, false, null, null, false) {
+            @Override
+            protected DataProcessor compileSource() throws Throwable {
+                countDownLatch.countDown();
+                return super.compileSource();
+            }
+        }.precompile(tempDir.resolve(DfdlSchema.PRECOMPILED_SCHEMAS_LOCATION));
+        assertTrue(Files.exists(binSchemaPath));
+        assertEquals(2, countDownLatch.getCount());
+
+        DfdlSchema dfdlSchema = new DfdlSchema(this.getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Limited, false, false, null, null, false) {
+            @Override
+            protected DataProcessor compileSource() throws Throwable {
+                countDownLatch.countDown();
+                return super.compileSource();
+            }
+        };
+        assertEquals(binSchemaPath, dfdlSchema.precompile(tempDir.resolve(DfdlSchema.PRECOMPILED_SCHEMAS_LOCATION)));
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{tempDir.toUri().toURL()}, null)) {
+            dfdlSchema.setClassLoader(classLoader);
+            DataProcessor dataProcessor = dfdlSchema.compile();
+            assertFalse(dataProcessor.isError());
+        }
+        assertEquals(2, countDownLatch.getCount());
+
+        dfdlSchema = new DfdlSchema(this.getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Off, false, false, "{http://example.com}file", null, false) {
+            @Override
+            protected DataProcessor compileSource() throws Throwable {
+                countDownLatch.countDown();
+                return super.compileSource();
+            }
+        };
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{tempDir.toUri().toURL()}, null)) {
+            dfdlSchema.setClassLoader(classLoader);
+            dfdlSchema.compile();
+        }
+        assertEquals(1, countDownLatch.getCount());
+    }
+
+    @Test
+    public void testGetFingerprint(@TempDir Path tempDir) throws Throwable {
+        Path schemaPath = writeSchemaWithInclude(tempDir.resolve("a"));
+        Path relocatedSchemaPath = writeSchemaWithInclude(tempDir.resolve("b"));
+
+        String fingerprint = new DfdlSchema(schemaPath.toUri(), ValidationMode.Off, true, false, null, null, false).getFingerprint();
+        assertEquals(fingerprint, new DfdlSchema(relocatedSchemaPath.toUri(), ValidationMode.Full, true, true, null, null, false).getFingerprint());
+        assertNotEquals(fingerprint, new DfdlSchema(schemaPath.toUri(), ValidationMode.Off, true, false, "{http://example.com}file", null, false).getFingerprint());
+
+        Files.write(relocatedSchemaPath.resolveSibling("record.dfdl.xsd"), " ".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        assertNotEquals(fingerprint, new DfdlSchema(relocatedSchemaPath.toUri(), ValidationMode.Off, true, false, null, null, false).getFingerprint());
+    }
+
+    @Test
+    public void testCompileGivenCacheOnDiskIsSetToTrueAndCorruptCompiledSchema() throws Throwable {
+        CountDownLatch countDownLatch = new CountDownLatch(2);
+        DfdlSchema dfdlSchema = new DfdlSchema(this.getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Off, true, false, null, null, false) {
+            @Override
+            protected DataProcessor compileSource() throws Throwable {
+                countDownLatch.countDown();
+                return super.compileSource();
+            }
+        };
+        File binSchemaFile = new File(DfdlSchema.WORKING_DIRECTORY + "/csv.dfdl.xsd-" + dfdlSchema.getFingerprint() + ".dat");
+        binSchemaFile.getParentFile().mkdirs();
+        Files.write(binSchemaFile.toPath(), "foo".getBytes(StandardCharsets.UTF_8));
+
+        assertNotNull(dfdlSchema.compile());
+        assertEquals(1, countDownLatch.getCount());
+        assertNotNull(dfdlSchema.compile());
+        assertEquals(1, countDownLatch.getCount());
+    }
+
+    @Test
+    public void testCompileGivenCacheOnDiskIsSetToTrueAndConcurrentCompilation() throws Throwable {
+        AtomicInteger compilations = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<DataProcessor>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executorService.submit(() -> {
+                    try {
+                        return new DfdlSchema(this.getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Off, true, false, null, null, false) {
+                            @Override
+                            protected DataProcessor compileSource() throws Throwable {
+                                compilations.incrementAndGet();
+                                return super.compileSource();
+                            }
+                        }.compile();
+                    } catch (Throwable t) {
+                        throw new Exception(t);
+                    }
+                }));
+            }
+            for (Future<DataProcessor> future : futures) {
+                assertNotNull(future.get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assertEquals(1, compilations.get());
+    }
+
+    private Path writeSchemaWithInclude(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Files.write(directory.resolve("record.dfdl.xsd"), ("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" xmlns:dfdl=\"http://www.ogf.org/dfdl/dfdl-1.0/\" xmlns:ex=\"http://example.com\" targetNamespace=\"http://example.com\">" +
+                "<xs:include schemaLocation=\"org/apache/daffodil/xsd/DFDLGeneralFormat.dfdl.xsd\"/>" +
+                "<xs:annotation><xs:appinfo source=\"http://www.ogf.org/dfdl/\"><dfdl:format ref=\"ex:GeneralFormat\" lengthKind=\"delimited\"/></xs:appinfo></xs:annotation>" +
+                "<xs:element name=\"record\"><xs:complexType><xs:sequence dfdl:separator=\",\">" +
+                "<xs:element name=\"item\" type=\"xs:string\" maxOccurs=\"unbounded\"/>" +
+                "</xs:sequence></xs:complexType></xs:element></xs:schema>").getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("file.dfdl.xsd"), ("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" xmlns:dfdl=\"http://www.ogf.org/dfdl/dfdl-1.0/\" xmlns:ex=\"http://example.com\" targetNamespace=\"http://example.com\">" +
+                "<xs:include schemaLocation=\"org/apache/daffodil/xsd/DFDLGeneralFormat.dfdl.xsd\"/>" +
+                "<xs:include schemaLocation=\"record.dfdl.xsd\"/>" +
+                "<xs:annotation><xs:appinfo source=\"http://www.ogf.org/dfdl/\"><dfdl:format ref=\"ex:GeneralFormat\" lengthKind=\"delimited\"/></xs:appinfo></xs:annotation>" +
+                "<xs:element name=\"file\"><xs:complexType><xs:sequence dfdl:separator=\"%NL;\" dfdl:separatorPosition=\"postfix\">" +
+                "<xs:element ref=\"ex:record\" maxOccurs=\"unbounded\"/>" +
+                "</xs:sequence></xs:complexType></xs:element></xs:schema>").getBytes(StandardCharsets.UTF_8));
+
+        return directory.resolve("file.dfdl.xsd");
+    }
+}
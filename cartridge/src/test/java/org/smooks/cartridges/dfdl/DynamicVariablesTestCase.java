@@ -0,0 +1,137 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl;
+
+import org.apache.daffodil.japi.DataProcessor;
+import org.apache.daffodil.japi.ValidationMode;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.smooks.Smooks;
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.TypedKey;
+import org.smooks.api.resource.config.ResourceConfig;
+import org.smooks.engine.resource.config.DefaultResourceConfig;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class DynamicVariablesTestCase extends AbstractTestCase {
+
+    private static DataProcessor dataProcessor;
+
+    @BeforeAll
+    public static void beforeAll() throws Throwable {
+        dataProcessor = new DfdlSchema(DynamicVariablesTestCase.class.getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Off, false, false, null, null, false).compile();
+    }
+
+    @Test
+    public void testResolve() {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter(DynamicVariables.BEAN_VARIABLES_PARAM, new AbstractMap.SimpleEntry<>("{http://example.com}Delimiter", "delimiter"));
+        resourceConfig.setParameter(DynamicVariables.TYPED_KEY_VARIABLES_PARAM, new AbstractMap.SimpleEntry<>("{http://example.com}Encoding", "encoding"));
+        DynamicVariables dynamicVariables = new DynamicVariables(resourceConfig);
+
+        Smooks smooks = new Smooks();
+        try {
+            ExecutionContext executionContext = smooks.createExecutionContext();
+            assertNull(dynamicVariables.resolve(executionContext, null));
+
+            executionContext.getBeanContext().addBean("delimiter", "|");
+            executionContext.put(TypedKey.of("encoding"), "UTF-8");
+            Map<String, String> expectedVariables = new HashMap<>();
+            expectedVariables.put("{http://example.com}Delimiter", "|");
+            expectedVariables.put("{http://example.com}Encoding", "UTF-8");
+            assertEquals(expectedVariables, dynamicVariables.resolve(executionContext, null));
+
+            expectedVariables.put("{http://example.com}Delimiter", "~");
+            assertEquals(expectedVariables, dynamicVariables.resolve(executionContext, Collections.singletonMap("{http://example.com}Delimiter", "~")));
+        } finally {
+            smooks.close();
+        }
+    }
+
+    @Test
+    public void testResolveGivenNoDynamicVariables() {
+        DynamicVariables dynamicVariables = new DynamicVariables(new DefaultResourceConfig());
+        Map<String, String> overrides = Collections.singletonMap("{http://example.com}Delimiter", "~");
+
+        assertSame(overrides, dynamicVariables.resolve(null, overrides));
+    }
+
+    @Test
+    public void testBind() {
+        AtomicInteger bindings = new AtomicInteger();
+        DynamicVariables dynamicVariables = new DynamicVariables(new DefaultResourceConfig(), 2);
+
+        DataProcessor pipeDataProcessor = dynamicVariables.bind(Collections.singletonMap("{http://example.com}Delimiter", "|"), variables -> bind(variables, bindings));
+        assertSame(pipeDataProcessor, dynamicVariables.bind(Collections.singletonMap("{http://example.com}Delimiter", "|"), variables -> bind(variables, bindings)));
+        assertEquals(1, bindings.get());
+
+        DataProcessor tildeDataProcessor = dynamicVariables.bind(Collections.singletonMap("{http://example.com}Delimiter", "~"), variables -> bind(variables, bindings));
+        assertNotSame(pipeDataProcessor, tildeDataProcessor);
+        assertEquals(2, bindings.get());
+
+        dynamicVariables.bind(Collections.singletonMap("{http://example.com}Delimiter", ","), variables -> bind(variables, bindings));
+        assertEquals(2, dynamicVariables.size());
+        assertSame(tildeDataProcessor, dynamicVariables.bind(Collections.singletonMap("{http://example.com}Delimiter", "~"), variables -> bind(variables, bindings)));
+        dynamicVariables.bind(Collections.singletonMap("{http://example.com}Delimiter", "|"), variables -> bind(variables, bindings));
+        assertEquals(4, bindings.get());
+    }
+
+    private DataProcessor bind(Map<String, String> variables, AtomicInteger bindings) {
+        bindings.incrementAndGet();
+        try {
+            return dataProcessor.withExternalVariables(new HashMap<>(variables));
+        } catch (Exception e) {
+            throw new DfdlSmooksException(e);
+        }
+    }
+}
@@ -50,12 +50,17 @@ import org.smooks.FilterSettings;
 import org.smooks.Smooks;
 import org.smooks.api.ExecutionContext;
 import org.smooks.api.SmooksConfigException;
+import org.smooks.cartridges.dfdl.metrics.DfdlMetrics;
+import org.smooks.cartridges.dfdl.metrics.HistogramDfdlMetrics;
 import org.smooks.cartridges.dfdl.parser.DfdlParser;
 import org.smooks.cartridges.dfdl.unparser.DfdlUnparser;
+import org.smooks.io.sink.ByteSink;
+import org.smooks.io.source.StreamSource;
 import org.smooks.support.SmooksUtil;
 import org.smooks.support.StreamUtils;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -108,6 +113,17 @@ public class FunctionalTestCase extends AbstractTestCase {
         assertTrue(diagnostics.get(0).getMessage().startsWith("Validation Error: never fails"));
     }
 
+    @Test
+    public void testSmooksConfigGivenMaxDiagnosticsAndDiagnosticsSampling() throws Exception {
+        smooks.addResourceConfigs("/smooks-max-diagnostics-config.xml");
+        ExecutionContext executionContext = smooks.createExecutionContext();
+        SmooksUtil.filterAndSerialize(executionContext, getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), smooks);
+
+        List<Diagnostic> diagnostics = executionContext.get(DfdlParser.DIAGNOSTICS_TYPED_KEY);
+        assertEquals(10, diagnostics.size());
+        assertEquals(22, executionContext.get(DfdlParser.DIAGNOSTICS_COLLECTOR_TYPED_KEY).getCount());
+    }
+
     @Test
     public void testSmooksConfigGivenVariables() throws Exception {
         smooks.addResourceConfigs("/smooks-variables-config.xml");
@@ -116,6 +132,21 @@ public class FunctionalTestCase extends AbstractTestCase {
         assertTrue(compareCharStreams(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.pipe.csv"), "UTF-8"), result));
     }
 
+    @Test
+    public void testSmooksConfigGivenBeanVariables() throws Exception {
+        smooks.addResourceConfigs("/smooks-dynamic-variables-config.xml");
+
+        ExecutionContext executionContext = smooks.createExecutionContext();
+        executionContext.getBeanContext().addBean("delimiter", "~");
+        String result = SmooksUtil.filterAndSerialize(executionContext, getClass().getResourceAsStream("/data/simpleCSV.tilde.csv"), smooks);
+        assertTrue(compareCharStreams(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.pipe.csv"), "UTF-8"), result));
+
+        executionContext = smooks.createExecutionContext();
+        executionContext.getBeanContext().addBean("delimiter", ",");
+        result = SmooksUtil.filterAndSerialize(executionContext, getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), smooks);
+        assertTrue(compareCharStreams(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.pipe.csv"), "UTF-8"), result));
+    }
+
     @Test
     public void testSmooksConfigGivenCacheOnDiskAttributeIsSetToTrue() throws Exception {
         smooks.addResourceConfigs("/smooks-cacheOnDisk-config.xml");
@@ -137,6 +168,18 @@ public class FunctionalTestCase extends AbstractTestCase {
         assertThrows(SmooksConfigException.class, () -> smooks.addResourceConfigs("/smooks-missing-unparseOnNode-attribute-config.xml"));
     }
 
+    @Test
+    public void testSmooksConfigGivenVariableWithNoneOfValueBeanIdTypedKey() {
+        SmooksConfigException smooksConfigException = assertThrows(SmooksConfigException.class, () -> smooks.addResourceConfigs("/smooks-variable-none-of-value-beanId-typedKey-config.xml"));
+        assertTrue(getRootCause(smooksConfigException).getMessage().contains("{http://example.com}Delimiter"));
+    }
+
+    @Test
+    public void testSmooksConfigGivenVariableWithSeveralOfValueBeanIdTypedKey() {
+        SmooksConfigException smooksConfigException = assertThrows(SmooksConfigException.class, () -> smooks.addResourceConfigs("/smooks-variable-several-of-value-beanId-typedKey-config.xml"));
+        assertTrue(getRootCause(smooksConfigException).getMessage().contains("{http://example.com}Delimiter"));
+    }
+
     @Test
     public void testSmooksGivenDfdlUnparserVisitor() throws Throwable {
         DfdlSchema dfdlSchema = new DfdlSchema(this.getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Full, false, false, null, null, false);
@@ -149,10 +192,71 @@ public class FunctionalTestCase extends AbstractTestCase {
         assertTrue(compareCharStreams(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), "UTF-8"), result));
     }
 
+    @Test
+    public void testSmooksGivenDfdlUnparserVisitorAndByteSink() throws Throwable {
+        DfdlSchema dfdlSchema = new DfdlSchema(this.getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Full, false, false, null, null, false);
+        DfdlUnparser dfdlUnparser = new DfdlUnparser(dfdlSchema.compile());
+
+        smooks.setFilterSettings(FilterSettings.newSaxNgSettings().setDefaultSerializationOn(false));
+        smooks.addVisitor(dfdlUnparser, "*");
+
+        ByteSink byteSink = new ByteSink();
+        smooks.filterSource(smooks.createExecutionContext(), new StreamSource<>(getClass().getResourceAsStream("/data/simpleCSV.xml")), byteSink);
+        assertTrue(compareCharStreams(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), "UTF-8"), new String(byteSink.getResult(), StandardCharsets.UTF_8)));
+    }
+
     @Test
     public void testSmooksConfigGivenDistinguishedRootNode() throws Exception {
         smooks.addResourceConfigs("/smooks-distinguished-root-node-config.xml");
         String result = SmooksUtil.filterAndSerialize(smooks.createExecutionContext(), getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), smooks);
         assertEquals("smith,robert,brandon,1988-03-24johnson,john,henry,1986-01-23jones,arya,cat,1986-02-19", result);
     }
+
+    @Test
+    public void testSmooksConfigGivenDistinguishedRootNodeAndByteSink() throws Exception {
+        smooks.addResourceConfigs("/smooks-distinguished-root-node-config.xml");
+        ByteSink byteSink = new ByteSink();
+        smooks.filterSource(smooks.createExecutionContext(), new StreamSource<>(getClass().getResourceAsStream("/data/simpleCSV.comma.csv")), byteSink);
+        assertEquals("smith,robert,brandon,1988-03-24johnson,john,henry,1986-01-23jones,arya,cat,1986-02-19", new String(byteSink.getResult(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSmooksConfigGivenHistogramDfdlMetrics() throws Exception {
+        HistogramDfdlMetrics histogramDfdlMetrics = new HistogramDfdlMetrics();
+        smooks.getApplicationContext().getRegistry().registerObject(DfdlMetrics.class, histogramDfdlMetrics);
+        smooks.addResourceConfigs("/smooks-config.xml");
+        String result = SmooksUtil.filterAndSerialize(smooks.createExecutionContext(), getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), smooks);
+        assertTrue(compareCharStreams(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), "UTF-8"), result));
+
+        HistogramDfdlMetrics.SchemaMetrics schemaMetrics = histogramDfdlMetrics.getSchemaMetrics("/csv.dfdl.xsd");
+        assertEquals(1, schemaMetrics.getCompileLatency().getCount());
+        assertEquals(1, schemaMetrics.getParseLatency().getCount());
+        assertEquals(1, schemaMetrics.getRecordsPerMessage().getMax());
+        assertEquals(StreamUtils.readStream(getClass().getResourceAsStream("/data/simpleCSV.comma.csv")).length, schemaMetrics.getBytesIn());
+        assertEquals(0, schemaMetrics.getErrorDiagnostics());
+    }
+
+    @Test
+    public void testSmooksGivenDfdlUnparserVisitorAndHistogramDfdlMetrics() throws Throwable {
+        HistogramDfdlMetrics histogramDfdlMetrics = new HistogramDfdlMetrics();
+        smooks.getApplicationContext().getRegistry().registerObject(DfdlMetrics.class, histogramDfdlMetrics);
+        DfdlSchema dfdlSchema = new DfdlSchema(this.getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Full, false, false, null, null, false);
+        DfdlUnparser dfdlUnparser = new DfdlUnparser(dfdlSchema.compile());
+        dfdlUnparser.setSchemaUri("/csv.dfdl.xsd");
+
+        smooks.setFilterSettings(FilterSettings.newSaxNgSettings().setDefaultSerializationOn(false));
+        smooks.addVisitor(dfdlUnparser, "*");
+
+        String result = SmooksUtil.filterAndSerialize(smooks.createExecutionContext(), getClass().getResourceAsStream("/data/simpleCSV.xml"), smooks);
+        HistogramDfdlMetrics.SchemaMetrics schemaMetrics = histogramDfdlMetrics.getSchemaMetrics("/csv.dfdl.xsd");
+        assertEquals(1, schemaMetrics.getUnparseLatency().getCount());
+        assertEquals(result.getBytes(StandardCharsets.UTF_8).length, schemaMetrics.getBytesOut());
+    }
+
+    private static Throwable getRootCause(Throwable throwable) {
+        while (throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable;
+    }
 }
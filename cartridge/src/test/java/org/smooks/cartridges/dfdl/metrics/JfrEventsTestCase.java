@@ -0,0 +1,127 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.smooks.Smooks;
+import org.smooks.cartridges.dfdl.AbstractTestCase;
+import org.smooks.support.SmooksUtil;
+import org.smooks.support.StreamUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JfrEventsTestCase extends AbstractTestCase {
+
+    @Test
+    public void testIsAvailable() {
+        assertTrue(JfrEvents.isAvailable());
+    }
+
+    @Test
+    public void testParseEventIsTypeEnabled() {
+        assertFalse(ParseEvent.isTypeEnabled());
+        try (Recording recording = new Recording()) {
+            recording.enable(ParseEvent.class);
+            recording.start();
+            assertTrue(ParseEvent.isTypeEnabled());
+            recording.stop();
+        }
+        assertFalse(ParseEvent.isTypeEnabled());
+    }
+
+    @Test
+    public void testSmooksConfigWhenRecording() throws Exception {
+        Path recordingPath = Files.createTempFile("dfdl", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(CompileEvent.class).withoutThreshold();
+            recording.enable(SchemaLookupEvent.class).withoutThreshold();
+            recording.enable(ParseEvent.class).withoutThreshold();
+            recording.enable(UnparseEvent.class).withoutThreshold();
+            recording.start();
+            try (Smooks smooks = new Smooks("/smooks-config.xml")) {
+                SmooksUtil.filterAndSerialize(smooks.createExecutionContext(), getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), smooks);
+            }
+            recording.stop();
+            recording.dump(recordingPath);
+
+            List<RecordedEvent> recordedEvents = RecordingFile.readAllEvents(recordingPath);
+            List<RecordedEvent> schemaLookupEvents = getEvents(recordedEvents, "org.smooks.cartridges.dfdl.SchemaLookup");
+            assertFalse(schemaLookupEvents.isEmpty());
+            assertEquals("/csv.dfdl.xsd", schemaLookupEvents.get(0).getString("schemaUri"));
+            assertFalse(schemaLookupEvents.get(0).getBoolean("hit"));
+
+            List<RecordedEvent> compileEvents = getEvents(recordedEvents, "org.smooks.cartridges.dfdl.Compile");
+            assertFalse(compileEvents.isEmpty());
+            assertTrue(compileEvents.get(0).getString("schemaUri").endsWith("csv.dfdl.xsd"));
+
+            long bytes = StreamUtils.readStream(getClass().getResourceAsStream("/data/simpleCSV.comma.csv")).length;
+            List<RecordedEvent> parseEvents = getEvents(recordedEvents, "org.smooks.cartridges.dfdl.Parse");
+            assertEquals(1, parseEvents.size());
+            assertEquals("/csv.dfdl.xsd", parseEvents.get(0).getString("schemaUri"));
+            assertEquals(0, parseEvents.get(0).getLong("recordIndex"));
+            assertEquals(bytes, parseEvents.get(0).getLong("bytesIn"));
+            assertFalse(parseEvents.get(0).getBoolean("error"));
+
+            List<RecordedEvent> unparseEvents = getEvents(recordedEvents, "org.smooks.cartridges.dfdl.Unparse");
+            assertEquals(1, unparseEvents.size());
+            assertEquals("/csv.dfdl.xsd", unparseEvents.get(0).getString("schemaUri"));
+            assertEquals(bytes, unparseEvents.get(0).getLong("bytesOut"));
+        } finally {
+            Files.deleteIfExists(recordingPath);
+        }
+    }
+
+    private List<RecordedEvent> getEvents(List<RecordedEvent> recordedEvents, String name) {
+        return recordedEvents.stream().filter(recordedEvent -> recordedEvent.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+}
@@ -52,18 +52,25 @@ import org.xml.sax.ContentHandler;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
 import scala.xml.NamespaceBinding;
 import scala.xml.TopScope$;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class ContentHandlerInfosetOutputterTestCase {
 
@@ -623,4 +630,145 @@ public class ContentHandlerInfosetOutputterTestCase {
         assertEquals("true", attributes[0].getValue("xsi:nil"));
         assertEquals("http://www.w3.org/2001/XMLSchema-instance", attributes[0].getValue("xmlns:xsi"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCreateAttributesReusesAttributesAndElementNames() {
+        ContentHandlerInfosetOutputter contentHandlerInfosetOutputter = new ContentHandlerInfosetOutputter(null, false);
+        StubInfosetElement prefixedElement = new StubInfosetElement(newElementMetadata("foo", "ex", new NamespaceBinding("ex", "http://example.com", TopScope$.MODULE$)));
+        StubInfosetElement unprefixedElement = new StubInfosetElement(newElementMetadata("bar", null, null));
+
+        AttributesImpl attributes = contentHandlerInfosetOutputter.createAttributes(prefixedElement);
+        assertEquals(1, attributes.getLength());
+        assertEquals("xmlns:ex", attributes.getQName(0));
+        assertSame(attributes, contentHandlerInfosetOutputter.createAttributes(unprefixedElement));
+        assertEquals(0, attributes.getLength());
+
+        ContentHandlerInfosetOutputter.ElementNames elementNames = contentHandlerInfosetOutputter.getElementNames(prefixedElement);
+        assertEquals("ex:foo", elementNames.qName);
+        assertEquals("foo", elementNames.localName);
+        assertEquals("http://example.com", elementNames.namespaceUri);
+        assertSame(elementNames, contentHandlerInfosetOutputter.getElementNames(new StubInfosetElement(prefixedElement.metadata())));
+    }
+
+    @Test
+    public void testCharactersReusesBuffer() throws Exception {
+        List<char[]> buffers = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        ContentHandlerInfosetOutputter contentHandlerInfosetOutputter = new ContentHandlerInfosetOutputter(new DefaultHandler() {
+            @Override
+            public void characters(char[] ch, int start, int length) {
+                buffers.add(ch);
+                text.append(ch, start, length);
+            }
+        }, false);
+
+        char[] large = new char[200];
+        Arrays.fill(large, 'x');
+        char[] huge = new char[ContentHandlerInfosetOutputter.MAX_RETAINED_CHARACTERS_LENGTH + 1];
+        Arrays.fill(huge, 'y');
+
+        contentHandlerInfosetOutputter.characters("foo");
+        contentHandlerInfosetOutputter.characters("bar");
+        contentHandlerInfosetOutputter.characters(new String(large));
+        contentHandlerInfosetOutputter.characters(new String(huge));
+        contentHandlerInfosetOutputter.characters("baz");
+
+        assertEquals("foobar" + new String(large) + new String(huge) + "baz", text.toString());
+        assertSame(buffers.get(0), buffers.get(1));
+        assertSame(buffers.get(2), buffers.get(4));
+        assertNotSame(buffers.get(3), buffers.get(4));
+    }
+
+    @Test
+    public void testReset() {
+        ContentHandlerInfosetOutputter contentHandlerInfosetOutputter = new ContentHandlerInfosetOutputter(null, false);
+        StubInfosetElement prefixedElement = new StubInfosetElement(newElementMetadata("foo", "ex", new NamespaceBinding("ex", "http://example.com", TopScope$.MODULE$)));
+
+        assertEquals(1, contentHandlerInfosetOutputter.createAttributes(prefixedElement).getLength());
+        assertEquals(0, contentHandlerInfosetOutputter.createAttributes(prefixedElement).getLength());
+        ContentHandlerInfosetOutputter.ElementNames elementNames = contentHandlerInfosetOutputter.getElementNames(prefixedElement);
+        contentHandlerInfosetOutputter.elementLevel = 2;
+        contentHandlerInfosetOutputter.contentHandlerThrowable = new Exception();
+
+        contentHandlerInfosetOutputter.reset();
+        assertEquals(0, contentHandlerInfosetOutputter.elementLevel);
+        assertEquals(0, contentHandlerInfosetOutputter.namespaceBindings.size());
+        assertNull(contentHandlerInfosetOutputter.getContentHandlerThrowable());
+        assertEquals(1, contentHandlerInfosetOutputter.createAttributes(prefixedElement).getLength());
+        assertSame(elementNames, contentHandlerInfosetOutputter.getElementNames(prefixedElement));
+    }
+
+    private static SimpleElementMetadata newElementMetadata(String name, String prefix, NamespaceBinding minimizedScope) {
+        return new SimpleElementMetadata() {
+            @Override
+            public DFDLPrimType dfdlType() {
+                return null;
+            }
+
+            @Override
+            public String schemaFileInfo() {
+                return "";
+            }
+
+            @Override
+            public Long schemaFileLineNumber() {
+                return 0L;
+            }
+
+            @Override
+            public Long schemaFileLineColumnNumber() {
+                return 0L;
+            }
+
+            @Override
+            public String diagnosticDebugName() {
+                return "";
+            }
+
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public String namespace() {
+                return minimizedScope == null ? null : minimizedScope.uri();
+            }
+
+            @Override
+            public NamespaceBinding minimizedScope() {
+                return minimizedScope;
+            }
+
+            @Override
+            public String prefix() {
+                return prefix;
+            }
+
+            @Override
+            public boolean isArray() {
+                return false;
+            }
+
+            @Override
+            public boolean isOptional() {
+                return false;
+            }
+
+            @Override
+            public String toQName() {
+                return prefix == null ? name : prefix + ":" + name;
+            }
+
+            @Override
+            public boolean isNillable() {
+                return false;
+            }
+
+            @Override
+            public Map<String, String> runtimeProperties() {
+                return new HashMap<>();
+            }
+        };
+    }
+}
@@ -0,0 +1,750 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.parser;
+
+import org.apache.daffodil.japi.DataProcessor;
+import org.apache.daffodil.japi.Diagnostic;
+import org.apache.daffodil.japi.ParseResult;
+import org.apache.daffodil.japi.ValidationMode;
+import org.apache.daffodil.japi.infoset.InfosetOutputter;
+import org.apache.daffodil.japi.io.InputSourceDataInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.smooks.Smooks;
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksConfigException;
+import org.smooks.api.SmooksException;
+import org.smooks.api.resource.config.ResourceConfig;
+import org.smooks.cartridges.dfdl.AbstractTestCase;
+import org.smooks.cartridges.dfdl.DaemonPool;
+import org.smooks.cartridges.dfdl.DataProcessorCache;
+import org.smooks.cartridges.dfdl.DataProcessorFactory;
+import org.smooks.cartridges.dfdl.DefaultDataProcessorCache;
+import org.smooks.cartridges.dfdl.DfdlError;
+import org.smooks.cartridges.dfdl.DynamicVariables;
+import org.smooks.engine.DefaultApplicationContextBuilder;
+import org.smooks.engine.delivery.sax.ng.SaxNgContentHandler;
+import org.smooks.engine.resource.config.DefaultResourceConfig;
+import org.smooks.engine.xml.NamespaceManager;
+import org.smooks.io.Stream;
+import org.smooks.namespace.NamespaceDeclarationStack;
+import org.smooks.support.StreamUtils;
+import org.smooks.testkit.MockApplicationContext;
+import org.smooks.testkit.MockExecutionContext;
+import org.smooks.testkit.TextUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DfdlParserTestCase extends AbstractTestCase {
+
+    private StringWriter stringWriter;
+    private SaxNgContentHandler saxContentHandler;
+
+    @BeforeEach
+    public void beforeEach() throws ParserConfigurationException {
+        ExecutionContext executionContext = new Smooks(new DefaultApplicationContextBuilder().withClassLoader(this.getClass().getClassLoader()).build()).createExecutionContext();
+        executionContext.put(NamespaceManager.NAMESPACE_DECLARATION_STACK_TYPED_KEY, new NamespaceDeclarationStack());
+        stringWriter = new StringWriter();
+        executionContext.put(Stream.STREAM_WRITER_TYPED_KEY, stringWriter);
+        saxContentHandler = new SaxNgContentHandler(executionContext, DocumentBuilderFactory.newInstance().newDocumentBuilder());
+    }
+
+    public static class DiagnosticErrorDataProcessorFactory extends DataProcessorFactory {
+
+        public DiagnosticErrorDataProcessorFactory() {
+
+        }
+
+        @Override
+        public DataProcessor createDataProcessor() {
+            return new DataProcessor(null) {
+                @Override
+                public DataProcessor withExternalVariables(AbstractMap<String, String> extVars) {
+                    return this;
+                }
+
+                @Override
+                public ParseResult parse(InputSourceDataInputStream input, InfosetOutputter output) {
+                    return new ParseResult(null) {
+
+                        @Override
+                        public boolean isError() {
+                            return false;
+                        }
+
+                        @Override
+                        public List<Diagnostic> getDiagnostics() {
+                            return Collections.singletonList(new Diagnostic(null) {
+                                @Override
+                                public String getSomeMessage() {
+                                    return "";
+                                }
+
+                                @Override
+                                public Throwable getSomeCause() {
+                                    return new Throwable();
+                                }
+
+                                @Override
+                                public boolean isError() {
+                                    return true;
+                                }
+                            });
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ValidationMode.class)
+    public void testParseWhenParseError(ValidationMode validationMode) throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+
+        DfdlParser dfdlParser = new DfdlParser();
+        dfdlParser.setDataProcessorFactoryClass(DataProcessorFactory.class);
+        dfdlParser.setResourceConfig(resourceConfig);
+        dfdlParser.setExecutionContext(new MockExecutionContext());
+        dfdlParser.setApplicationContext(new MockApplicationContext());
+        dfdlParser.setContentHandler(saxContentHandler);
+        dfdlParser.setValidationMode(validationMode);
+
+        dfdlParser.postConstruct();
+
+        assertThrows(ParserDfdlSmooksException.class, () -> dfdlParser.parse(new InputSource(new ByteArrayInputStream("foo".getBytes()))));
+    }
+
+    @Test
+    public void testParseGivenStacklessErrorReportingWhenParseError() throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+        resourceConfig.setParameter(DfdlParser.ERROR_REPORTING_PARAM, DfdlParser.STACKLESS_ERROR_REPORTING);
+
+        DfdlParser dfdlParser = newDfdlParser(resourceConfig, new MockApplicationContext());
+        MockExecutionContext executionContext = new MockExecutionContext();
+        dfdlParser.setExecutionContext(executionContext);
+
+        ParserDfdlSmooksException parserDfdlSmooksException = assertThrows(ParserDfdlSmooksException.class, () -> dfdlParser.parse(new InputSource(new ByteArrayInputStream("foo".getBytes()))));
+        assertEquals(0, parserDfdlSmooksException.getStackTrace().length);
+
+        DfdlError dfdlError = executionContext.get(DfdlParser.ERROR_TYPED_KEY);
+        assertNotNull(dfdlError.getDiagnostic());
+        assertEquals(dfdlError.getMessage(), parserDfdlSmooksException.getMessage());
+    }
+
+    @Test
+    public void testSetErrorReportingGivenUnknownValue() {
+        assertThrows(IllegalArgumentException.class, () -> new DfdlParser().setErrorReporting("foo"));
+    }
+
+    @Test
+    public void testParseWhenDiagnosticExistsButNotParseError() throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "");
+
+        DfdlParser dfdlParser = new DfdlParser();
+        dfdlParser.setDataProcessorFactoryClass(DiagnosticErrorDataProcessorFactory.class);
+        dfdlParser.setResourceConfig(resourceConfig);
+        dfdlParser.setApplicationContext(new MockApplicationContext());
+        dfdlParser.setContentHandler(saxContentHandler);
+        dfdlParser.setExecutionContext(new MockExecutionContext());
+
+        dfdlParser.postConstruct();
+        dfdlParser.parse(new InputSource(new ByteArrayInputStream("".getBytes())));
+
+        assertEquals("", stringWriter.toString());
+    }
+
+    @Test
+    public void testParseWhenContentHandlerError() throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+
+        DfdlParser dfdlParser = new DfdlParser();
+        dfdlParser.setDataProcessorFactoryClass(DataProcessorFactory.class);
+        dfdlParser.setResourceConfig(resourceConfig);
+        dfdlParser.setApplicationContext(new MockApplicationContext());
+        dfdlParser.setIndent(true);
+        dfdlParser.setContentHandler(new ContentHandler() {
+            @Override
+            public void setDocumentLocator(Locator locator) {
+
+            }
+
+            @Override
+            public void startDocument() throws SAXException {
+
+            }
+
+            @Override
+            public void endDocument() throws SAXException {
+
+            }
+
+            @Override
+            public void startPrefixMapping(String prefix, String uri) throws SAXException {
+
+            }
+
+            @Override
+            public void endPrefixMapping(String prefix) throws SAXException {
+
+            }
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+                throw new SmooksException("ContentHandler error");
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) throws SAXException {
+
+            }
+
+            @Override
+            public void characters(char[] ch, int start, int length) throws SAXException {
+
+            }
+
+            @Override
+            public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+
+            }
+
+            @Override
+            public void processingInstruction(String target, String data) throws SAXException {
+
+            }
+
+            @Override
+            public void skippedEntity(String name) throws SAXException {
+
+            }
+        });
+
+        dfdlParser.postConstruct();
+        SmooksException smooksException = assertThrows(SmooksException.class, () -> dfdlParser.parse(new InputSource(getClass().getResourceAsStream("/data/simpleCSV.comma.csv"))));
+        assertEquals("org.smooks.api.SmooksException: ContentHandler error", smooksException.getMessage());
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+
+        DfdlParser dfdlParser = new DfdlParser();
+        dfdlParser.setDataProcessorFactoryClass(DataProcessorFactory.class);
+        dfdlParser.setResourceConfig(resourceConfig);
+        dfdlParser.setApplicationContext(new MockApplicationContext());
+        dfdlParser.setIndent(true);
+        dfdlParser.setContentHandler(saxContentHandler);
+
+        dfdlParser.postConstruct();
+        dfdlParser.parse(new InputSource(getClass().getResourceAsStream("/data/simpleCSV.comma.csv")));
+
+        assertEquals(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.xml"), "UTF-8"), stringWriter.toString());
+    }
+
+    @Test
+    public void testParseGivenInputSourceIsReader() throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+
+        DfdlParser dfdlParser = new DfdlParser();
+        dfdlParser.setDataProcessorFactoryClass(DataProcessorFactory.class);
+        dfdlParser.setResourceConfig(resourceConfig);
+        dfdlParser.setApplicationContext(new MockApplicationContext());
+        dfdlParser.setIndent(true);
+        dfdlParser.setContentHandler(saxContentHandler);
+        dfdlParser.setExecutionContext(new MockExecutionContext());
+
+        dfdlParser.postConstruct();
+        dfdlParser.parse(new InputSource(new InputStreamReader(getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), "UTF-8")));
+
+        assertEquals(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.xml"), "UTF-8"), stringWriter.toString());
+    }
+
+    @Test
+    public void testParseGivenInputSourceIsStringReader() throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+
+        DfdlParser dfdlParser = newDfdlParser(resourceConfig, new MockApplicationContext());
+        dfdlParser.setIndent(true);
+        dfdlParser.setExecutionContext(new MockExecutionContext());
+
+        String csv = StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), "UTF-8");
+        dfdlParser.parse(new InputSource(new StringReader(csv)));
+
+        assertEquals(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.xml"), "UTF-8"), stringWriter.toString());
+    }
+
+    @Test
+    public void testIncrementalParse() throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+
+        DfdlParser dfdlParser = new DfdlParser();
+        dfdlParser.setDataProcessorFactoryClass(DataProcessorFactory.class);
+        dfdlParser.setResourceConfig(resourceConfig);
+        dfdlParser.setApplicationContext(new MockApplicationContext());
+        dfdlParser.setIndent(true);
+        dfdlParser.setContentHandler(saxContentHandler);
+        dfdlParser.postConstruct();
+
+        String input = StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), "UTF-8");
+        dfdlParser.parse(new InputSource(new ByteArrayInputStream((input + input).getBytes())));
+
+        String expectedResult = StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.xml"), "UTF-8");
+        assertEquals(expectedResult + expectedResult, stringWriter.toString());
+    }
+
+    @Test
+    public void testParseGivenIndentIsFalse() throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+
+        DfdlParser dfdlParser = new DfdlParser();
+        dfdlParser.setDataProcessorFactoryClass(DataProcessorFactory.class);
+        dfdlParser.setResourceConfig(resourceConfig);
+        dfdlParser.setApplicationContext(new MockApplicationContext());
+        dfdlParser.setIndent(false);
+        dfdlParser.setContentHandler(saxContentHandler);
+
+        dfdlParser.postConstruct();
+        dfdlParser.parse(new InputSource(getClass().getResourceAsStream("/data/simpleCSV.comma.csv")));
+
+        assertEquals(TextUtils.trimLines(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.xml"), "UTF-8")), stringWriter.toString());
+    }
+
+    @Test
+    public void testParseGivenNonUtf8CharacterStreamInputSource() throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+        resourceConfig.setParameter("variables",  new AbstractMap.SimpleEntry<>("Encoding", "ISO-8859-1"));
+
+        DfdlParser dfdlParser = new DfdlParser();
+        dfdlParser.setDataProcessorFactoryClass(DataProcessorFactory.class);
+        dfdlParser.setResourceConfig(resourceConfig);
+        dfdlParser.setApplicationContext(new MockApplicationContext());
+        dfdlParser.setContentHandler(saxContentHandler);
+
+        MockExecutionContext mockExecutionContext = new MockExecutionContext();
+        mockExecutionContext.setContentEncoding(StandardCharsets.ISO_8859_1.name());
+        dfdlParser.setExecutionContext(mockExecutionContext);
+
+        dfdlParser.postConstruct();
+        dfdlParser.parse(new InputSource(new InputStreamReader(getClass().getResourceAsStream("/data/simpleCSV.nonUtf8Encoding.csv"), StandardCharsets.ISO_8859_1)));
+
+        assertEquals(TextUtils.trimLines(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.nonUtf8Encoding.xml"), "UTF-8")), stringWriter.toString());
+    }
+
+    @Test
+    public void testParseGivenMessageVariables() throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+        resourceConfig.setParameter("variables", new AbstractMap.SimpleEntry<>("{http://example.com}Delimiter", ","));
+
+        DfdlParser dfdlParser = new DfdlParser();
+        dfdlParser.setDataProcessorFactoryClass(DataProcessorFactory.class);
+        dfdlParser.setResourceConfig(resourceConfig);
+        dfdlParser.setApplicationContext(new MockApplicationContext());
+        dfdlParser.setIndent(true);
+        dfdlParser.setContentHandler(saxContentHandler);
+        dfdlParser.postConstruct();
+
+        MockExecutionContext executionContext = new MockExecutionContext();
+        assertSame(dfdlParser.getDataProcessor(executionContext), dfdlParser.getDataProcessor(new MockExecutionContext()));
+
+        executionContext.put(DfdlParser.VARIABLES_TYPED_KEY, Collections.singletonMap("{http://example.com}Delimiter", "|"));
+        assertNotSame(dfdlParser.getDataProcessor(executionContext), dfdlParser.getDataProcessor(new MockExecutionContext()));
+
+        dfdlParser.setExecutionContext(executionContext);
+        dfdlParser.parse(new InputSource(getClass().getResourceAsStream("/data/simpleCSV.pipe.csv")));
+
+        assertEquals(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.xml"), "UTF-8"), stringWriter.toString());
+    }
+
+    @Test
+    public void testParseGivenSameResourceConfig() throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+        MockApplicationContext applicationContext = new MockApplicationContext();
+        List<ContentHandlerInfosetOutputter> contentHandlerInfosetOutputters = new ArrayList<>();
+        applicationContext.getRegistry().registerObject(DataProcessorFactory.class, new DefaultDataProcessorCache() {
+            @Override
+            public DataProcessor get(String key, Loader loader) {
+                return super.get(key, () -> {
+                    DataProcessor dataProcessor = loader.load();
+                    return new DataProcessor(null) {
+                        @Override
+                        public ParseResult parse(InputSourceDataInputStream input, InfosetOutputter output) {
+                            contentHandlerInfosetOutputters.add((ContentHandlerInfosetOutputter) output);
+                            return dataProcessor.parse(input, output);
+                        }
+                    };
+                });
+            }
+        });
+
+        DfdlParser firstDfdlParser = newDfdlParser(resourceConfig, applicationContext);
+        DfdlParser secondDfdlParser = newDfdlParser(resourceConfig, applicationContext);
+        assertSame(firstDfdlParser.dataProcessor, secondDfdlParser.dataProcessor);
+        assertSame(firstDfdlParser.getDynamicVariables(), secondDfdlParser.getDynamicVariables());
+        ResourceConfig otherResourceConfig = new DefaultResourceConfig();
+        otherResourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+        assertNotSame(firstDfdlParser.getDynamicVariables(), newDfdlParser(otherResourceConfig, applicationContext).getDynamicVariables());
+
+        for (DfdlParser dfdlParser : Arrays.asList(firstDfdlParser, secondDfdlParser)) {
+            dfdlParser.setExecutionContext(new MockExecutionContext());
+            dfdlParser.parse(new InputSource(getClass().getResourceAsStream("/data/simpleCSV.comma.csv")));
+        }
+
+        assertEquals(2, contentHandlerInfosetOutputters.size());
+        assertSame(contentHandlerInfosetOutputters.get(0), contentHandlerInfosetOutputters.get(1));
+        assertNull(contentHandlerInfosetOutputters.get(0).contentHandler);
+        assertEquals(0, contentHandlerInfosetOutputters.get(0).elementLevel);
+    }
+
+    @Test
+    public void testParseGivenDataProcessorEvictedFromCache() throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+        MockApplicationContext applicationContext = new MockApplicationContext();
+        DataProcessorCache dataProcessorCache = new DefaultDataProcessorCache();
+        applicationContext.getRegistry().registerObject(DataProcessorFactory.class, dataProcessorCache);
+
+        DfdlParser firstDfdlParser = newDfdlParser(resourceConfig, applicationContext);
+        firstDfdlParser.setExecutionContext(new MockExecutionContext());
+        firstDfdlParser.parse(new InputSource(getClass().getResourceAsStream("/data/simpleCSV.comma.csv")));
+        DataProcessor evictedDataProcessor = firstDfdlParser.dataProcessor;
+        DynamicVariables evictedDynamicVariables = firstDfdlParser.getDynamicVariables();
+
+        dataProcessorCache.invalidateAll();
+        DfdlParser secondDfdlParser = newDfdlParser(resourceConfig, applicationContext);
+        secondDfdlParser.setExecutionContext(new MockExecutionContext());
+        secondDfdlParser.parse(new InputSource(getClass().getResourceAsStream("/data/simpleCSV.comma.csv")));
+
+        assertEquals(1, dataProcessorCache.size());
+        assertNotSame(evictedDataProcessor, secondDfdlParser.dataProcessor);
+        assertNotSame(evictedDynamicVariables, secondDfdlParser.getDynamicVariables());
+    }
+
+    @Test
+    public void testParseGivenDataProcessorEvictedFromCacheDoesNotReuseOutputter() throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+        MockApplicationContext applicationContext = new MockApplicationContext();
+        List<ContentHandlerInfosetOutputter> contentHandlerInfosetOutputters = new ArrayList<>();
+        DataProcessorCache dataProcessorCache = new DefaultDataProcessorCache() {
+            @Override
+            public DataProcessor get(String key, Loader loader) {
+                return super.get(key, () -> {
+                    DataProcessor dataProcessor = loader.load();
+                    return new DataProcessor(null) {
+                        @Override
+                        public ParseResult parse(InputSourceDataInputStream input, InfosetOutputter output) {
+                            contentHandlerInfosetOutputters.add((ContentHandlerInfosetOutputter) output);
+                            return dataProcessor.parse(input, output);
+                        }
+                    };
+                });
+            }
+        };
+        applicationContext.getRegistry().registerObject(DataProcessorFactory.class, dataProcessorCache);
+
+        for (int i = 0; i < 3; i++) {
+            if (i == 2) {
+                dataProcessorCache.invalidateAll();
+            }
+            DfdlParser dfdlParser = newDfdlParser(resourceConfig, applicationContext);
+            dfdlParser.setExecutionContext(new MockExecutionContext());
+            dfdlParser.parse(new InputSource(getClass().getResourceAsStream("/data/simpleCSV.comma.csv")));
+        }
+
+        assertEquals(3, contentHandlerInfosetOutputters.size());
+        assertSame(contentHandlerInfosetOutputters.get(0), contentHandlerInfosetOutputters.get(1));
+        assertNotSame(contentHandlerInfosetOutputters.get(1), contentHandlerInfosetOutputters.get(2));
+    }
+
+    @Test
+    public void testParseGivenRecordsRootElement() throws Exception {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+        resourceConfig.setParameter(DfdlParser.RECORDS_ROOT_ELEMENT_PARAM, "records");
+
+        List<String> events = new ArrayList<>();
+        DfdlParser dfdlParser = newDfdlParser(resourceConfig, new MockApplicationContext());
+        dfdlParser.setContentHandler(new DefaultHandler() {
+            @Override
+            public void startDocument() {
+                events.add("startDocument");
+            }
+
+            @Override
+            public void endDocument() {
+                events.add("endDocument");
+            }
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if (localName.equals("records") || localName.equals("file")) {
+                    events.add(qName);
+                }
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) {
+                if (localName.equals("records") || localName.equals("file")) {
+                    events.add("/" + qName);
+                }
+            }
+        });
+        dfdlParser.setExecutionContext(new MockExecutionContext());
+
+        String records = StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), "UTF-8");
+        dfdlParser.parse(new InputSource(new ByteArrayInputStream((records + records).getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals(Arrays.asList("startDocument", "records", "ex:file", "/ex:file", "ex:file", "/ex:file", "/records", "endDocument"), events);
+    }
+
+    @Test
+    public void testParseGivenRecordDelimiter() throws Exception {
+        String records = StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), "UTF-8");
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            input.append(records.replace("smith", "smith" + i));
+        }
+
+        for (String recordsRootElement : Arrays.asList(null, "records")) {
+            ResourceConfig resourceConfig = new DefaultResourceConfig();
+            resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+            MockApplicationContext applicationContext = new MockApplicationContext();
+
+            DfdlParser sequentialDfdlParser = newDfdlParser(resourceConfig, applicationContext);
+            sequentialDfdlParser.setRecordsRootElement(recordsRootElement);
+            EventLog sequentialEventLog = new EventLog();
+            sequentialDfdlParser.setContentHandler(sequentialEventLog);
+            sequentialDfdlParser.setExecutionContext(new MockExecutionContext());
+            sequentialDfdlParser.parse(new InputSource(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8))));
+
+            DfdlParser parallelDfdlParser = newDfdlParser(resourceConfig, applicationContext);
+            parallelDfdlParser.setRecordsRootElement(recordsRootElement);
+            parallelDfdlParser.setRecordDelimiter("<EOF>");
+            parallelDfdlParser.setReorderBufferSize(4);
+            EventLog parallelEventLog = new EventLog();
+            parallelDfdlParser.setContentHandler(parallelEventLog);
+            parallelDfdlParser.setExecutionContext(new MockExecutionContext());
+            parallelDfdlParser.parse(new InputSource(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8))));
+
+            assertEquals(sequentialEventLog.toString(), parallelEventLog.toString());
+            assertTrue(parallelEventLog.toString().contains("smith49"));
+            assertTrue(applicationContext.getRegistry().lookup(DfdlParser.EXECUTOR_TYPED_KEY) instanceof DaemonPool);
+        }
+    }
+
+    @Test
+    public void testParseGivenRecordDelimiterWhenParseError() throws Exception {
+        String records = StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), "UTF-8");
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+
+        DfdlParser dfdlParser = newDfdlParser(resourceConfig, new MockApplicationContext());
+        dfdlParser.setRecordDelimiter("<EOF>");
+        EventLog eventLog = new EventLog();
+        dfdlParser.setContentHandler(eventLog);
+        dfdlParser.setExecutionContext(new MockExecutionContext());
+
+        InputSource inputSource = new InputSource(new ByteArrayInputStream((records + records + "foo").getBytes(StandardCharsets.UTF_8)));
+        assertThrows(ParserDfdlSmooksException.class, () -> dfdlParser.parse(inputSource));
+        assertEquals(2, eventLog.toString().split("endDocument").length - 1);
+    }
+
+    @Test
+    public void testPostConstructGivenSkipMalformedRecordsWithoutRecordDelimiterOrRecordLengthPrefix() {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+        resourceConfig.setParameter(DfdlParser.SKIP_MALFORMED_RECORDS_PARAM, "true");
+
+        SmooksConfigException smooksConfigException = assertThrows(SmooksConfigException.class, () -> newDfdlParser(resourceConfig, new MockApplicationContext()));
+        assertTrue(smooksConfigException.getMessage().contains(DfdlParser.SKIP_MALFORMED_RECORDS_PARAM));
+    }
+
+    @Test
+    public void testParseGivenRecordDelimiterAndSkipMalformedRecordsWhenParseError() throws Exception {
+        String records = StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), "UTF-8");
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+        resourceConfig.setParameter(DfdlParser.SKIP_MALFORMED_RECORDS_PARAM, "true");
+        resourceConfig.setParameter(DfdlParser.RECORD_DELIMITER_PARAM, "<EOF>");
+
+        DfdlParser dfdlParser = newDfdlParser(resourceConfig, new MockApplicationContext());
+        dfdlParser.setRecordsRootElement("records");
+        EventLog eventLog = new EventLog();
+        dfdlParser.setContentHandler(eventLog);
+        MockExecutionContext executionContext = new MockExecutionContext();
+        dfdlParser.setExecutionContext(executionContext);
+
+        byte[] recordBytes = records.getBytes(StandardCharsets.UTF_8);
+        dfdlParser.parse(new InputSource(new ByteArrayInputStream((records + "foo<EOF>" + records).getBytes(StandardCharsets.UTF_8))));
+
+        String events = eventLog.toString();
+        assertEquals(2, events.split("smith").length - 1);
+        assertTrue(events.contains("<https://www.smooks.org/xsd/smooks/dfdl-1.0.xsd|dfdl:recordError xmlns:dfdl=https://www.smooks.org/xsd/smooks/dfdl-1.0.xsd index=1 start=" + recordBytes.length + " end=" + (recordBytes.length + 8) + ">"));
+        assertTrue(events.endsWith("</records>endDocument;"));
+        assertFalse(executionContext.get(DfdlParser.DIAGNOSTICS_TYPED_KEY).isEmpty());
+    }
+
+    @Test
+    public void testParseGivenMemoryMapped() throws Exception {
+        File file = File.createTempFile("simpleCSV", ".csv");
+        file.deleteOnExit();
+        try (InputStream inputStream = getClass().getResourceAsStream("/data/simpleCSV.comma.csv")) {
+            Files.copy(inputStream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+        resourceConfig.setParameter(DfdlParser.MEMORY_MAPPED_PARAM, "true");
+
+        DfdlParser dfdlParser = newDfdlParser(resourceConfig, new MockApplicationContext());
+        dfdlParser.setIndent(true);
+        dfdlParser.setExecutionContext(new MockExecutionContext());
+        try (FileInputStream fileInputStream = new FileInputStream(file)) {
+            InputSource inputSource = new InputSource(fileInputStream);
+            assertTrue(dfdlParser.map(inputSource) instanceof MappedByteBuffer);
+            assertEquals(file.length(), fileInputStream.getChannel().position());
+        }
+        assertNull(dfdlParser.map(new InputSource(file.toURI().toString())));
+        assertNull(dfdlParser.map(new InputSource(new ByteArrayInputStream(new byte[0]))));
+
+        try (FileInputStream fileInputStream = new FileInputStream(file)) {
+            dfdlParser.parse(new InputSource(fileInputStream));
+        }
+        assertEquals(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.xml"), "UTF-8"), stringWriter.toString());
+    }
+
+    private static class EventLog extends DefaultHandler {
+        private final StringBuilder events = new StringBuilder();
+
+        @Override
+        public void startDocument() {
+            events.append("startDocument;");
+        }
+
+        @Override
+        public void endDocument() {
+            events.append("endDocument;");
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            events.append('<').append(uri).append('|').append(qName);
+            for (int i = 0; i < attributes.getLength(); i++) {
+                events.append(' ').append(attributes.getQName(i)).append('=').append(attributes.getValue(i));
+            }
+            events.append('>');
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            events.append("</").append(qName).append('>');
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            events.append(ch, start, length);
+        }
+
+        @Override
+        public String toString() {
+            return events.toString();
+        }
+    }
+
+    private DfdlParser newDfdlParser(ResourceConfig resourceConfig, MockApplicationContext applicationContext) throws Exception {
+        DfdlParser dfdlParser = new DfdlParser();
+        dfdlParser.setDataProcessorFactoryClass(DataProcessorFactory.class);
+        dfdlParser.setResourceConfig(resourceConfig);
+        dfdlParser.setApplicationContext(applicationContext);
+        dfdlParser.setContentHandler(saxContentHandler);
+        dfdlParser.postConstruct();
+
+        return dfdlParser;
+    }
+}
@@ -50,10 +50,13 @@ import org.smooks.cartridges.dfdl.TestKit;
 import org.smooks.support.SmooksUtil;
 import org.smooks.support.StreamUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.concurrent.ThreadLocalRandom;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.smooks.testkit.Assertions.compareCharStreams;
 
@@ -73,4 +76,26 @@ public class DfdlReaderConfiguratorTestCase extends AbstractTestCase {
         String result = SmooksUtil.filterAndSerialize(smooks.createExecutionContext(), getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), smooks);
         assertTrue(compareCharStreams(StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.xml"), "UTF-8"), result));
     }
+
+    @Test
+    public void testToConfigGivenRecordsRootElement() throws IOException {
+        Smooks smooks = new Smooks();
+        smooks.setReaderConfig(new DfdlReaderConfigurator("/csv.dfdl.xsd").setRecordsRootElement("records"));
+
+        String records = StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), "UTF-8");
+        String result = SmooksUtil.filterAndSerialize(smooks.createExecutionContext(), new ByteArrayInputStream((records + records).getBytes(StandardCharsets.UTF_8)), smooks);
+        assertTrue(result.startsWith("<records>"));
+        assertTrue(result.endsWith("</records>"));
+        assertEquals(2, result.split("<ex:file ").length - 1);
+    }
+
+    @Test
+    public void testToConfigGivenRecordDelimiter() throws IOException {
+        Smooks smooks = new Smooks();
+        smooks.setReaderConfig(new DfdlReaderConfigurator("/csv.dfdl.xsd").setRecordsRootElement("records").setRecordDelimiter("<EOF>").setReorderBufferSize(2));
+
+        String records = StreamUtils.readStreamAsString(getClass().getResourceAsStream("/data/simpleCSV.comma.csv"), "UTF-8");
+        String result = SmooksUtil.filterAndSerialize(smooks.createExecutionContext(), new ByteArrayInputStream((records + records + records).getBytes(StandardCharsets.UTF_8)), smooks);
+        assertEquals(3, result.split("<ex:file ").length - 1);
+    }
 }
@@ -0,0 +1,89 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.parser;
+
+import org.apache.daffodil.japi.Diagnostic;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DiagnosticsCollectorTestCase {
+
+    @Test
+    public void testAddGivenMaxDiagnostics() {
+        DiagnosticsCollector diagnosticsCollector = new DiagnosticsCollector(2, 1);
+        Diagnostic[] diagnostics = {new Diagnostic(null), new Diagnostic(null), new Diagnostic(null)};
+        for (Diagnostic diagnostic : diagnostics) {
+            diagnosticsCollector.add(diagnostic);
+        }
+
+        assertEquals(2, diagnosticsCollector.getDiagnostics().size());
+        assertSame(diagnostics[0], diagnosticsCollector.getDiagnostics().get(0));
+        assertSame(diagnostics[1], diagnosticsCollector.getDiagnostics().get(1));
+        assertEquals(3, diagnosticsCollector.getCount());
+        assertEquals(1, diagnosticsCollector.getDroppedCount());
+    }
+
+    @Test
+    public void testAddGivenSampling() {
+        DiagnosticsCollector diagnosticsCollector = new DiagnosticsCollector(Integer.MAX_VALUE, 3);
+        Diagnostic[] diagnostics = new Diagnostic[7];
+        for (int i = 0; i < diagnostics.length; i++) {
+            diagnostics[i] = new Diagnostic(null);
+            diagnosticsCollector.add(diagnostics[i]);
+        }
+
+        assertEquals(3, diagnosticsCollector.getDiagnostics().size());
+        assertSame(diagnostics[0], diagnosticsCollector.getDiagnostics().get(0));
+        assertSame(diagnostics[3], diagnosticsCollector.getDiagnostics().get(1));
+        assertSame(diagnostics[6], diagnosticsCollector.getDiagnostics().get(2));
+        assertEquals(4, diagnosticsCollector.getDroppedCount());
+    }
+
+    @Test
+    public void testConstructorGivenInvalidSampling() {
+        assertThrows(IllegalArgumentException.class, () -> new DiagnosticsCollector(1, 0));
+    }
+}
@@ -0,0 +1,98 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.parser;
+
+import org.junit.jupiter.api.Test;
+import scala.xml.NamespaceBinding;
+import scala.xml.TopScope$;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NamespaceScopeStackTestCase {
+
+    @Test
+    public void testCanonicalize() {
+        NamespaceScopeStack namespaceScopeStack = new NamespaceScopeStack();
+        NamespaceBinding namespaceBinding = namespaceScopeStack.canonicalize(new NamespaceBinding("ex", "http://example.com", TopScope$.MODULE$));
+
+        assertSame(namespaceBinding, namespaceScopeStack.canonicalize(new NamespaceBinding("ex", "http://example.com", TopScope$.MODULE$)));
+    }
+
+    @Test
+    public void testPushAndPop() {
+        NamespaceScopeStack namespaceScopeStack = new NamespaceScopeStack();
+        NamespaceBinding exNamespaceBinding = namespaceScopeStack.canonicalize(new NamespaceBinding("ex", "http://example.com", TopScope$.MODULE$));
+        NamespaceBinding fooNamespaceBinding = namespaceScopeStack.canonicalize(new NamespaceBinding("foo", "http://foo.com", TopScope$.MODULE$));
+
+        assertTrue(namespaceScopeStack.push(exNamespaceBinding));
+        for (int i = 0; i < 100; i++) {
+            assertFalse(namespaceScopeStack.push(exNamespaceBinding));
+        }
+        assertTrue(namespaceScopeStack.push(fooNamespaceBinding));
+        assertEquals(102, namespaceScopeStack.size());
+
+        assertSame(fooNamespaceBinding, namespaceScopeStack.pop());
+        assertFalse(namespaceScopeStack.isDeclared(fooNamespaceBinding));
+        for (int i = 0; i < 100; i++) {
+            assertSame(exNamespaceBinding, namespaceScopeStack.pop());
+            assertTrue(namespaceScopeStack.isDeclared(exNamespaceBinding));
+        }
+        assertSame(exNamespaceBinding, namespaceScopeStack.pop());
+        assertFalse(namespaceScopeStack.isDeclared(exNamespaceBinding));
+        assertEquals(0, namespaceScopeStack.size());
+    }
+
+    @Test
+    public void testClear() {
+        NamespaceScopeStack namespaceScopeStack = new NamespaceScopeStack();
+        NamespaceBinding namespaceBinding = namespaceScopeStack.canonicalize(new NamespaceBinding("ex", "http://example.com", TopScope$.MODULE$));
+        namespaceScopeStack.push(namespaceBinding);
+        namespaceScopeStack.clear();
+
+        assertEquals(0, namespaceScopeStack.size());
+        assertTrue(namespaceScopeStack.push(namespaceBinding));
+    }
+}
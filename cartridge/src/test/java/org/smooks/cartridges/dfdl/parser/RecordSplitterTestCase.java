@@ -0,0 +1,130 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RecordSplitterTestCase {
+
+    @Test
+    public void testDelimitedRecordSplitter() throws IOException {
+        RecordSplitter recordSplitter = new DelimitedRecordSplitter("<EOF>".getBytes(StandardCharsets.UTF_8));
+        InputStream inputStream = new ByteArrayInputStream("foo<EOF>bar<EO<EOF><EOF>baz".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("foo<EOF>", new String(recordSplitter.next(inputStream), StandardCharsets.UTF_8));
+        assertEquals("bar<EO<EOF>", new String(recordSplitter.next(inputStream), StandardCharsets.UTF_8));
+        assertEquals("<EOF>", new String(recordSplitter.next(inputStream), StandardCharsets.UTF_8));
+        assertEquals("baz", new String(recordSplitter.next(inputStream), StandardCharsets.UTF_8));
+        assertNull(recordSplitter.next(inputStream));
+    }
+
+    @Test
+    public void testDelimitedRecordSplitterGivenLargeRecord() throws IOException {
+        RecordSplitter recordSplitter = new DelimitedRecordSplitter(new byte[]{'\n'});
+        byte[] record = new byte[5000];
+        record[record.length - 1] = '\n';
+        InputStream inputStream = new ByteArrayInputStream(record);
+
+        assertArrayEquals(record, recordSplitter.next(inputStream));
+        assertNull(recordSplitter.next(inputStream));
+    }
+
+    @Test
+    public void testDelimitedRecordSplitterGivenDelimiterAcrossReads() throws IOException {
+        RecordSplitter recordSplitter = new DelimitedRecordSplitter("<EOF>".getBytes(StandardCharsets.UTF_8));
+        InputStream inputStream = new ByteArrayInputStream("foo<EOF>bar<EO<EOF>".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 3));
+            }
+        };
+
+        assertEquals("foo<EOF>", new String(recordSplitter.next(inputStream), StandardCharsets.UTF_8));
+        assertEquals("bar<EO<EOF>", new String(recordSplitter.next(inputStream), StandardCharsets.UTF_8));
+        assertNull(recordSplitter.next(inputStream));
+    }
+
+    @Test
+    public void testDelimitedRecordSplitterGivenEmptyDelimiter() {
+        assertThrows(IllegalArgumentException.class, () -> new DelimitedRecordSplitter(new byte[0]));
+    }
+
+    @Test
+    public void testLengthPrefixedRecordSplitter() throws IOException {
+        RecordSplitter recordSplitter = new LengthPrefixedRecordSplitter(2);
+        InputStream inputStream = new ByteArrayInputStream(new byte[]{0, 3, 'f', 'o', 'o', 0, 0, 1, 0, 'b'});
+
+        assertArrayEquals(new byte[]{0, 3, 'f', 'o', 'o'}, recordSplitter.next(inputStream));
+        assertArrayEquals(new byte[]{0, 0}, recordSplitter.next(inputStream));
+        assertThrows(EOFException.class, () -> recordSplitter.next(inputStream));
+        assertNull(recordSplitter.next(inputStream));
+    }
+
+    @Test
+    public void testLengthPrefixedRecordSplitterGivenLengthExceedingMaximum() throws IOException {
+        RecordSplitter recordSplitter = new LengthPrefixedRecordSplitter(4);
+        InputStream inputStream = new ByteArrayInputStream(new byte[]{0, 0, 0, 1, 'a', (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+
+        assertArrayEquals(new byte[]{0, 0, 0, 1, 'a'}, recordSplitter.next(inputStream));
+        IOException ioException = assertThrows(IOException.class, () -> recordSplitter.next(inputStream));
+        assertFalse(ioException instanceof EOFException);
+        assertEquals("Malformed record at byte offset 5: record length 4294967295 exceeds the maximum record length of 2147483643", ioException.getMessage());
+    }
+
+    @Test
+    public void testLengthPrefixedRecordSplitterGivenUnsupportedPrefixLength() {
+        assertThrows(IllegalArgumentException.class, () -> new LengthPrefixedRecordSplitter(3));
+    }
+}
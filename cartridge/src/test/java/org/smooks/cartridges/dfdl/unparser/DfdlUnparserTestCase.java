@@ -0,0 +1,512 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.unparser;
+
+import org.apache.daffodil.japi.Daffodil;
+import org.apache.daffodil.japi.DataProcessor;
+import org.apache.daffodil.japi.ProcessorFactory;
+import org.dom4j.DocumentException;
+import org.dom4j.DocumentHelper;
+import org.dom4j.io.DOMWriter;
+import org.junit.jupiter.api.Test;
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.resource.config.ResourceConfig;
+import org.smooks.cartridges.dfdl.AbstractTestCase;
+import org.smooks.cartridges.dfdl.DataProcessorCache;
+import org.smooks.cartridges.dfdl.DataProcessorFactory;
+import org.smooks.cartridges.dfdl.DefaultDataProcessorCache;
+import org.smooks.cartridges.dfdl.DfdlError;
+import org.smooks.engine.delivery.fragment.NodeFragment;
+import org.smooks.engine.resource.config.DefaultResourceConfig;
+import org.smooks.api.io.Sink;
+import org.smooks.io.Stream;
+import org.smooks.io.sink.StreamSink;
+import org.smooks.testkit.MockApplicationContext;
+import org.smooks.testkit.MockExecutionContext;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.xml.XMLConstants;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.net.URISyntaxException;
+import java.util.AbstractMap;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DfdlUnparserTestCase extends AbstractTestCase {
+
+    private Element fileElement;
+    private Node recordNode;
+    private Node fooItemNode;
+    private Node barItemNode;
+    private DfdlUnparser dfdlUnparser;
+    private MockExecutionContext executionContext;
+
+    @Override
+    public void doBeforeEach() throws DocumentException, URISyntaxException, IOException {
+        executionContext = new MockExecutionContext();
+        executionContext.put(Stream.STREAM_WRITER_TYPED_KEY, new StringWriter());
+
+        org.apache.daffodil.japi.Compiler compiler = Daffodil.compiler().withTunable("saxUnparseEventBatchSize", "1");
+        ProcessorFactory processorFactory = compiler.compileSource(getClass().getResource("/csv.dfdl.xsd").toURI());
+        DataProcessor dataProcessor = processorFactory.onPath("/");
+
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("variables", new AbstractMap.SimpleEntry<>("{http://example.com}Delimiter", ","));
+        dfdlUnparser = new DfdlUnparser(dataProcessor);
+        dfdlUnparser.setResourceConfig(resourceConfig);
+
+        org.dom4j.Element document = DocumentHelper.createDocument().
+                addElement("ex:file", "http://example.com").
+                addElement("ex:record");
+        document.addElement("item").addText("foo");
+        document.addElement("item").addText("bar");
+
+        fileElement = new DOMWriter().write(document.getDocument()).getDocumentElement();
+        recordNode = fileElement.getFirstChild();
+        fooItemNode = recordNode.getFirstChild();
+        barItemNode = recordNode.getLastChild();
+    }
+
+    @Test
+    public void testVisitBefore() {
+        assertTrue(Stream.out(executionContext).toString().isEmpty());
+        dfdlUnparser.visitBefore(fileElement, executionContext);
+        assertTrue(Stream.out(executionContext).toString().isEmpty());
+
+        assertTrue(Stream.out(executionContext).toString().isEmpty());
+        dfdlUnparser.visitBefore((Element) recordNode, executionContext);
+        assertTrue(Stream.out(executionContext).toString().isEmpty());
+
+        assertTrue(Stream.out(executionContext).toString().isEmpty());
+        dfdlUnparser.visitBefore((Element) fooItemNode, executionContext);
+        assertTrue(Stream.out(executionContext).toString().isEmpty());
+
+        DaffodilUnparseContentHandlerMemento daffodilUnparseContentHandlerMemento = dfdlUnparser.getOrCreateDaffodilUnparseContentHandlerMemento(fileElement, executionContext);
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().characters(fooItemNode.getTextContent().toCharArray(), 0, 3);
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().endElement(XMLConstants.NULL_NS_URI, fooItemNode.getLocalName(), fooItemNode.getLocalName());
+
+        assertEquals("foo", Stream.out(executionContext).toString());
+        dfdlUnparser.visitBefore((Element) barItemNode, executionContext);
+        assertEquals("foo", Stream.out(executionContext).toString());
+
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().characters(barItemNode.getTextContent().toCharArray(), 0, 3);
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().endElement(XMLConstants.NULL_NS_URI, barItemNode.getLocalName(), fooItemNode.getLocalName());
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().endElement(XMLConstants.NULL_NS_URI, recordNode.getLocalName(), recordNode.getLocalName());
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().endElement(fileElement.getNamespaceURI(), fileElement.getLocalName(), fileElement.getLocalName());
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().endDocument();
+
+        assertEquals("foo,bar\n<EOF>", Stream.out(executionContext).toString());
+    }
+
+    @Test
+    public void testVisitChildText() {
+        DaffodilUnparseContentHandlerMemento daffodilUnparseContentHandlerMemento = dfdlUnparser.getOrCreateDaffodilUnparseContentHandlerMemento(fileElement, executionContext);
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().startElement(fileElement.getNamespaceURI(), fileElement.getLocalName(), fileElement.getPrefix() + ":" + fileElement.getLocalName(), new AttributesImpl());
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().startElement("http://example.com", recordNode.getLocalName(), recordNode.getLocalName(), new AttributesImpl());
+
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().startElement(XMLConstants.NULL_NS_URI, fooItemNode.getLocalName(), fooItemNode.getLocalName(), new AttributesImpl());
+
+        assertTrue(Stream.out(executionContext).toString().isEmpty());
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) fooItemNode.getFirstChild(), executionContext);
+        assertTrue(Stream.out(executionContext).toString().isEmpty());
+
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().endElement(XMLConstants.NULL_NS_URI, fooItemNode.getLocalName(), fooItemNode.getLocalName());
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().startElement(XMLConstants.NULL_NS_URI, barItemNode.getLocalName(), barItemNode.getLocalName(), new AttributesImpl());
+
+        assertEquals("foo", Stream.out(executionContext).toString());
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) barItemNode.getFirstChild(), executionContext);
+        assertEquals("foo", Stream.out(executionContext).toString());
+
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().endElement(XMLConstants.NULL_NS_URI, barItemNode.getLocalName(), barItemNode.getLocalName());
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().endElement("http://example.com", recordNode.getLocalName(), recordNode.getLocalName());
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().endElement(fileElement.getNamespaceURI(), fileElement.getLocalName(), fileElement.getLocalName());
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().endDocument();
+
+        assertEquals("foo,bar\n<EOF>", Stream.out(executionContext).toString());
+    }
+
+    @Test
+    public void testVisitAfter() {
+        DaffodilUnparseContentHandlerMemento daffodilUnparseContentHandlerMemento = dfdlUnparser.getOrCreateDaffodilUnparseContentHandlerMemento(fileElement, executionContext);
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().startElement(fileElement.getNamespaceURI(), fileElement.getLocalName(), fileElement.getPrefix() + ":" + fileElement.getLocalName(), new AttributesImpl());
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().startElement("http://example.com", recordNode.getLocalName(), recordNode.getLocalName(), new AttributesImpl());
+
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().startElement(XMLConstants.NULL_NS_URI, fooItemNode.getLocalName(), fooItemNode.getLocalName(), new AttributesImpl());
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().characters(fooItemNode.getTextContent().toCharArray(), 0, 3);
+
+        assertTrue(Stream.out(executionContext).toString().isEmpty());
+        dfdlUnparser.visitAfter((Element) fooItemNode, executionContext);
+        assertEquals("foo", Stream.out(executionContext).toString());
+
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().startElement(XMLConstants.NULL_NS_URI, barItemNode.getLocalName(), barItemNode.getLocalName(), new AttributesImpl());
+        daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler().characters(barItemNode.getTextContent().toCharArray(), 0, 3);
+
+        assertEquals("foo", Stream.out(executionContext).toString());
+        dfdlUnparser.visitAfter((Element) barItemNode, executionContext);
+        assertEquals("foo", Stream.out(executionContext).toString());
+
+        assertEquals("foo", Stream.out(executionContext).toString());
+        dfdlUnparser.visitAfter((Element) recordNode, executionContext);
+        assertEquals("foo", Stream.out(executionContext).toString());
+
+        assertEquals("foo", Stream.out(executionContext).toString());
+        dfdlUnparser.visitAfter(fileElement, executionContext);
+        assertEquals("foo,bar\n<EOF>", Stream.out(executionContext).toString());
+    }
+
+    @Test
+    public void testIsFragmentNode() {
+        DaffodilUnparseContentHandlerMemento daffodilUnparseContentHandlerMemento = dfdlUnparser.getOrCreateDaffodilUnparseContentHandlerMemento(fileElement, executionContext);
+        assertTrue(daffodilUnparseContentHandlerMemento.isFragmentNode(fileElement));
+        assertFalse(daffodilUnparseContentHandlerMemento.isFragmentNode(recordNode));
+
+        Node delegateNode = fileElement.cloneNode(false);
+        delegateNode.setUserData(NodeFragment.ID_USER_DATA_KEY, fileElement.getUserData(NodeFragment.ID_USER_DATA_KEY), null);
+        assertTrue(daffodilUnparseContentHandlerMemento.isFragmentNode(delegateNode));
+    }
+
+    @Test
+    public void testGetOrCreateDaffodilUnparseContentHandlerMemento() {
+        DaffodilUnparseContentHandlerMemento daffodilUnparseContentHandlerMemento = dfdlUnparser.getOrCreateDaffodilUnparseContentHandlerMemento(fileElement, executionContext);
+        assertSame(fileElement, daffodilUnparseContentHandlerMemento.getFragment().unwrap());
+        assertSame(daffodilUnparseContentHandlerMemento, dfdlUnparser.getOrCreateDaffodilUnparseContentHandlerMemento(recordNode, executionContext));
+        assertSame(daffodilUnparseContentHandlerMemento, dfdlUnparser.getOrCreateDaffodilUnparseContentHandlerMemento(barItemNode.getFirstChild(), executionContext));
+
+        dfdlUnparser.visitBefore(fileElement, executionContext);
+        dfdlUnparser.visitBefore((Element) recordNode, executionContext);
+        dfdlUnparser.visitBefore((Element) fooItemNode, executionContext);
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) fooItemNode.getFirstChild(), executionContext);
+        dfdlUnparser.visitAfter((Element) fooItemNode, executionContext);
+        dfdlUnparser.visitBefore((Element) barItemNode, executionContext);
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) barItemNode.getFirstChild(), executionContext);
+        dfdlUnparser.visitAfter((Element) barItemNode, executionContext);
+        dfdlUnparser.visitAfter((Element) recordNode, executionContext);
+        assertSame(daffodilUnparseContentHandlerMemento, dfdlUnparser.getOrCreateDaffodilUnparseContentHandlerMemento(fileElement, executionContext));
+        dfdlUnparser.visitAfter(fileElement, executionContext);
+
+        DaffodilUnparseContentHandlerMemento nextDaffodilUnparseContentHandlerMemento = dfdlUnparser.getOrCreateDaffodilUnparseContentHandlerMemento(fileElement, executionContext);
+        assertNotSame(daffodilUnparseContentHandlerMemento, nextDaffodilUnparseContentHandlerMemento);
+        assertNotSame(daffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler(), nextDaffodilUnparseContentHandlerMemento.getDaffodilUnparseContentHandler());
+    }
+
+    @Test
+    public void testIsUnparsedAttribute() throws DocumentException {
+        Element element = new DOMWriter().write(DocumentHelper.parseText("<ex:file xmlns:ex=\"http://example.com\" xmlns=\"http://example.org\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" " +
+                "xsi:nil=\"true\" xsi:type=\"ex:file\" nil=\"true\" id=\"1\"/>")).getDocumentElement();
+        element.setAttribute("xmlnsfoo", "bar");
+
+        assertTrue(dfdlUnparser.isUnparsedAttribute(element.getAttributeNode("xmlns:ex")));
+        assertTrue(dfdlUnparser.isUnparsedAttribute(element.getAttributeNode("xmlns")));
+        assertTrue(dfdlUnparser.isUnparsedAttribute(element.getAttributeNode("xsi:nil")));
+        assertFalse(dfdlUnparser.isUnparsedAttribute(element.getAttributeNode("xsi:type")));
+        assertFalse(dfdlUnparser.isUnparsedAttribute(element.getAttributeNode("nil")));
+        assertFalse(dfdlUnparser.isUnparsedAttribute(element.getAttributeNode("xmlnsfoo")));
+        assertFalse(dfdlUnparser.isUnparsedAttribute(element.getAttributeNode("id")));
+    }
+
+    @Test
+    public void testVisitChildTextGivenTextLongerThanCharsBuffer() {
+        DaffodilUnparseContentHandlerMemento daffodilUnparseContentHandlerMemento = dfdlUnparser.getOrCreateDaffodilUnparseContentHandlerMemento(fileElement, executionContext);
+        char[] chars = daffodilUnparseContentHandlerMemento.getChars(1);
+        assertSame(chars, daffodilUnparseContentHandlerMemento.getChars(chars.length));
+
+        StringBuilder item = new StringBuilder();
+        for (int i = 0; i <= chars.length; i++) {
+            item.append('x');
+        }
+        fooItemNode.getFirstChild().setNodeValue(item.toString());
+
+        dfdlUnparser.visitBefore(fileElement, executionContext);
+        dfdlUnparser.visitBefore((Element) recordNode, executionContext);
+        dfdlUnparser.visitBefore((Element) fooItemNode, executionContext);
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) fooItemNode.getFirstChild(), executionContext);
+        dfdlUnparser.visitAfter((Element) fooItemNode, executionContext);
+        dfdlUnparser.visitBefore((Element) barItemNode, executionContext);
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) barItemNode.getFirstChild(), executionContext);
+        dfdlUnparser.visitAfter((Element) barItemNode, executionContext);
+        dfdlUnparser.visitAfter((Element) recordNode, executionContext);
+        dfdlUnparser.visitAfter(fileElement, executionContext);
+
+        assertNotSame(chars, daffodilUnparseContentHandlerMemento.getChars(1));
+        assertEquals(item + ",bar\n<EOF>", Stream.out(executionContext).toString());
+    }
+
+    @Test
+    public void testVisitAfterGivenEventErrorCheckpointWhenUnparseError() {
+        Element unknownElement = (Element) recordNode.insertBefore(fileElement.getOwnerDocument().createElementNS(null, "unknown"), fooItemNode);
+
+        dfdlUnparser.visitBefore(fileElement, executionContext);
+        dfdlUnparser.visitBefore((Element) recordNode, executionContext);
+        dfdlUnparser.visitBefore(unknownElement, executionContext);
+        assertThrows(UnparserDfdlSmooksException.class, () -> dfdlUnparser.visitAfter(unknownElement, executionContext));
+    }
+
+    @Test
+    public void testVisitAfterGivenDocumentErrorCheckpointWhenUnparseError() {
+        Element unknownElement = (Element) recordNode.insertBefore(fileElement.getOwnerDocument().createElementNS(null, "unknown"), fooItemNode);
+
+        dfdlUnparser.setErrorCheckpoint(DfdlUnparser.DOCUMENT_ERROR_CHECKPOINT);
+        dfdlUnparser.visitBefore(fileElement, executionContext);
+        dfdlUnparser.visitBefore((Element) recordNode, executionContext);
+        dfdlUnparser.visitBefore(unknownElement, executionContext);
+        assertThrows(UnparserDfdlSmooksException.class, () -> {
+            dfdlUnparser.visitAfter(unknownElement, executionContext);
+            dfdlUnparser.visitBefore((Element) fooItemNode, executionContext);
+            dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) fooItemNode.getFirstChild(), executionContext);
+            dfdlUnparser.visitAfter((Element) fooItemNode, executionContext);
+            dfdlUnparser.visitAfter((Element) recordNode, executionContext);
+            dfdlUnparser.visitAfter(fileElement, executionContext);
+        });
+
+        DaffodilUnparseContentHandlerMemento daffodilUnparseContentHandlerMemento = dfdlUnparser.getOrCreateDaffodilUnparseContentHandlerMemento(fileElement, executionContext);
+        assertEquals(0, daffodilUnparseContentHandlerMemento.getDepth());
+    }
+
+    @Test
+    public void testVisitAfterGivenStacklessErrorReportingWhenUnparseError() {
+        Element unknownElement = (Element) recordNode.insertBefore(fileElement.getOwnerDocument().createElementNS(null, "unknown"), fooItemNode);
+
+        dfdlUnparser.setErrorReporting(DfdlUnparser.STACKLESS_ERROR_REPORTING);
+        dfdlUnparser.visitBefore(fileElement, executionContext);
+        dfdlUnparser.visitBefore((Element) recordNode, executionContext);
+        dfdlUnparser.visitBefore(unknownElement, executionContext);
+        UnparserDfdlSmooksException unparserDfdlSmooksException = assertThrows(UnparserDfdlSmooksException.class, () -> dfdlUnparser.visitAfter(unknownElement, executionContext));
+        assertEquals(0, unparserDfdlSmooksException.getStackTrace().length);
+
+        DfdlError dfdlError = executionContext.get(DfdlUnparser.ERROR_TYPED_KEY);
+        assertNotNull(dfdlError.getCause());
+        assertEquals(dfdlError.getMessage(), unparserDfdlSmooksException.getMessage());
+    }
+
+    @Test
+    public void testVisitAfterGivenDepthErrorCheckpoint() {
+        dfdlUnparser.setErrorCheckpoint("1");
+        dfdlUnparser.visitBefore(fileElement, executionContext);
+        dfdlUnparser.visitBefore((Element) recordNode, executionContext);
+        dfdlUnparser.visitBefore((Element) fooItemNode, executionContext);
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) fooItemNode.getFirstChild(), executionContext);
+        dfdlUnparser.visitAfter((Element) fooItemNode, executionContext);
+        assertEquals(2, dfdlUnparser.getOrCreateDaffodilUnparseContentHandlerMemento(fileElement, executionContext).getDepth());
+        dfdlUnparser.visitBefore((Element) barItemNode, executionContext);
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) barItemNode.getFirstChild(), executionContext);
+        dfdlUnparser.visitAfter((Element) barItemNode, executionContext);
+        dfdlUnparser.visitAfter((Element) recordNode, executionContext);
+        dfdlUnparser.visitAfter(fileElement, executionContext);
+
+        assertEquals("foo,bar\n<EOF>", Stream.out(executionContext).toString());
+    }
+
+    @Test
+    public void testSetErrorCheckpointGivenNegativeDepth() {
+        assertThrows(IllegalArgumentException.class, () -> dfdlUnparser.setErrorCheckpoint("-1"));
+    }
+
+    @Test
+    public void testVisitAfterGivenOverriddenVariables() {
+        DfdlUnparser overridingDfdlUnparser = new DfdlUnparser(dfdlUnparser.getDataProcessor()) {
+            @Override
+            protected AbstractMap<String, String> getVariables(ExecutionContext executionContext) {
+                AbstractMap<String, String> variables = super.getVariables(executionContext);
+                variables.put("{http://example.com}Delimiter", "|");
+                return variables;
+            }
+        };
+        overridingDfdlUnparser.setResourceConfig(dfdlUnparser.getResourceConfig());
+
+        overridingDfdlUnparser.visitBefore(fileElement, executionContext);
+        overridingDfdlUnparser.visitBefore((Element) recordNode, executionContext);
+        overridingDfdlUnparser.visitBefore((Element) fooItemNode, executionContext);
+        overridingDfdlUnparser.visitChildText((org.w3c.dom.CharacterData) fooItemNode.getFirstChild(), executionContext);
+        overridingDfdlUnparser.visitAfter((Element) fooItemNode, executionContext);
+        overridingDfdlUnparser.visitBefore((Element) barItemNode, executionContext);
+        overridingDfdlUnparser.visitChildText((org.w3c.dom.CharacterData) barItemNode.getFirstChild(), executionContext);
+        overridingDfdlUnparser.visitAfter((Element) barItemNode, executionContext);
+        overridingDfdlUnparser.visitAfter((Element) recordNode, executionContext);
+        overridingDfdlUnparser.visitAfter(fileElement, executionContext);
+
+        assertEquals("foo|bar\n<EOF>", Stream.out(executionContext).toString());
+    }
+
+    @Test
+    public void testVisitAfterGivenDocumentVariables() {
+        dfdlUnparser.postConstruct();
+        assertSame(dfdlUnparser.getDataProcessor(executionContext), dfdlUnparser.getDataProcessor(new MockExecutionContext()));
+
+        executionContext.put(DfdlUnparser.VARIABLES_TYPED_KEY, Collections.singletonMap("{http://example.com}Delimiter", "|"));
+        assertNotSame(dfdlUnparser.getDataProcessor(executionContext), dfdlUnparser.getDataProcessor(new MockExecutionContext()));
+
+        dfdlUnparser.visitBefore(fileElement, executionContext);
+        dfdlUnparser.visitBefore((Element) recordNode, executionContext);
+        dfdlUnparser.visitBefore((Element) fooItemNode, executionContext);
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) fooItemNode.getFirstChild(), executionContext);
+        dfdlUnparser.visitAfter((Element) fooItemNode, executionContext);
+        dfdlUnparser.visitBefore((Element) barItemNode, executionContext);
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) barItemNode.getFirstChild(), executionContext);
+        dfdlUnparser.visitAfter((Element) barItemNode, executionContext);
+        dfdlUnparser.visitAfter((Element) recordNode, executionContext);
+        dfdlUnparser.visitAfter(fileElement, executionContext);
+
+        assertEquals("foo|bar\n<EOF>", Stream.out(executionContext).toString());
+    }
+
+    @Test
+    public void testVisitAfterGivenDataProcessorEvictedFromCache() {
+        ResourceConfig resourceConfig = new DefaultResourceConfig();
+        resourceConfig.setParameter("schemaUri", "/csv.dfdl.xsd");
+        resourceConfig.setParameter("dataProcessorFactory", DataProcessorFactory.class.getName());
+        resourceConfig.setParameter("variables", new AbstractMap.SimpleEntry<>("{http://example.com}Delimiter", "|"));
+        MockApplicationContext applicationContext = new MockApplicationContext();
+        DataProcessorCache dataProcessorCache = new DefaultDataProcessorCache();
+        applicationContext.getRegistry().registerObject(DataProcessorFactory.class, dataProcessorCache);
+        DfdlUnparserContentHandlerFactory<DfdlUnparser> dfdlUnparserContentHandlerFactory = new DfdlUnparserContentHandlerFactory<>();
+        dfdlUnparserContentHandlerFactory.setApplicationContext(applicationContext);
+        DfdlUnparser cachedDfdlUnparser = dfdlUnparserContentHandlerFactory.create(resourceConfig);
+
+        DataProcessor evictedDataProcessor = cachedDfdlUnparser.getDataProcessor();
+        DataProcessor evictedBoundDataProcessor = cachedDfdlUnparser.getDataProcessor(executionContext);
+        assertSame(evictedBoundDataProcessor, cachedDfdlUnparser.getDataProcessor(new MockExecutionContext()));
+
+        dataProcessorCache.invalidateAll();
+        DataProcessor boundDataProcessor = cachedDfdlUnparser.getDataProcessor(executionContext);
+
+        assertEquals(1, dataProcessorCache.size());
+        assertNotSame(evictedDataProcessor, cachedDfdlUnparser.getDataProcessor());
+        assertNotSame(evictedBoundDataProcessor, boundDataProcessor);
+        assertSame(boundDataProcessor, cachedDfdlUnparser.getDataProcessor(new MockExecutionContext()));
+
+        cachedDfdlUnparser.visitBefore(fileElement, executionContext);
+        cachedDfdlUnparser.visitBefore((Element) recordNode, executionContext);
+        cachedDfdlUnparser.visitBefore((Element) fooItemNode, executionContext);
+        cachedDfdlUnparser.visitChildText((org.w3c.dom.CharacterData) fooItemNode.getFirstChild(), executionContext);
+        cachedDfdlUnparser.visitAfter((Element) fooItemNode, executionContext);
+        cachedDfdlUnparser.visitBefore((Element) barItemNode, executionContext);
+        cachedDfdlUnparser.visitChildText((org.w3c.dom.CharacterData) barItemNode.getFirstChild(), executionContext);
+        cachedDfdlUnparser.visitAfter((Element) barItemNode, executionContext);
+        cachedDfdlUnparser.visitAfter((Element) recordNode, executionContext);
+        cachedDfdlUnparser.visitAfter(fileElement, executionContext);
+
+        assertEquals("foo|bar\n<EOF>", Stream.out(executionContext).toString());
+    }
+
+    @Test
+    public void testVisitAfterGivenStreamSink() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        executionContext.put(Sink.SINKS_TYPED_KEY, Collections.singletonList(new StreamSink<>(outputStream)));
+        executionContext.put(Stream.STREAM_WRITER_TYPED_KEY, writer);
+        writer.write("header\n");
+
+        dfdlUnparser.setDirectSinkOutput(true);
+        dfdlUnparser.setOutputBufferSize(4);
+        dfdlUnparser.visitBefore(fileElement, executionContext);
+        dfdlUnparser.visitBefore((Element) recordNode, executionContext);
+        dfdlUnparser.visitBefore((Element) fooItemNode, executionContext);
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) fooItemNode.getFirstChild(), executionContext);
+        dfdlUnparser.visitAfter((Element) fooItemNode, executionContext);
+        dfdlUnparser.visitBefore((Element) barItemNode, executionContext);
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) barItemNode.getFirstChild(), executionContext);
+        dfdlUnparser.visitAfter((Element) barItemNode, executionContext);
+        dfdlUnparser.visitAfter((Element) recordNode, executionContext);
+        dfdlUnparser.visitAfter(fileElement, executionContext);
+
+        assertEquals("header\nfoo,bar\n<EOF>", outputStream.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void testVisitAfterGivenStreamSinkWhenResultWriterIsRedirectedToOutputStreamWriter() throws IOException {
+        ByteArrayOutputStream sinkOutputStream = new ByteArrayOutputStream();
+        ByteArrayOutputStream redirectedOutputStream = new ByteArrayOutputStream();
+        Writer redirectedWriter = new OutputStreamWriter(redirectedOutputStream, StandardCharsets.UTF_8);
+        executionContext.put(Sink.SINKS_TYPED_KEY, Collections.singletonList(new StreamSink<>(sinkOutputStream)));
+        executionContext.put(Stream.STREAM_WRITER_TYPED_KEY, redirectedWriter);
+
+        dfdlUnparser.visitBefore(fileElement, executionContext);
+        dfdlUnparser.visitBefore((Element) recordNode, executionContext);
+        dfdlUnparser.visitBefore((Element) fooItemNode, executionContext);
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) fooItemNode.getFirstChild(), executionContext);
+        dfdlUnparser.visitAfter((Element) fooItemNode, executionContext);
+        dfdlUnparser.visitBefore((Element) barItemNode, executionContext);
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) barItemNode.getFirstChild(), executionContext);
+        dfdlUnparser.visitAfter((Element) barItemNode, executionContext);
+        dfdlUnparser.visitAfter((Element) recordNode, executionContext);
+        dfdlUnparser.visitAfter(fileElement, executionContext);
+        redirectedWriter.flush();
+
+        assertEquals(0, sinkOutputStream.size());
+        assertEquals("foo,bar\n<EOF>", redirectedOutputStream.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void testVisitAfterGivenStreamSinkWhenResultWriterIsRedirected() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        executionContext.put(Sink.SINKS_TYPED_KEY, Collections.singletonList(new StreamSink<>(outputStream)));
+
+        dfdlUnparser.visitBefore(fileElement, executionContext);
+        dfdlUnparser.visitBefore((Element) recordNode, executionContext);
+        dfdlUnparser.visitBefore((Element) fooItemNode, executionContext);
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) fooItemNode.getFirstChild(), executionContext);
+        dfdlUnparser.visitAfter((Element) fooItemNode, executionContext);
+        dfdlUnparser.visitBefore((Element) barItemNode, executionContext);
+        dfdlUnparser.visitChildText((org.w3c.dom.CharacterData) barItemNode.getFirstChild(), executionContext);
+        dfdlUnparser.visitAfter((Element) barItemNode, executionContext);
+        dfdlUnparser.visitAfter((Element) recordNode, executionContext);
+        dfdlUnparser.visitAfter(fileElement, executionContext);
+
+        assertEquals(0, outputStream.size());
+        assertEquals("foo,bar\n<EOF>", Stream.out(executionContext).toString());
+    }
+}
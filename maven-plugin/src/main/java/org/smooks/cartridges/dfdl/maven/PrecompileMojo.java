@@ -0,0 +1,146 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.maven;
+
+import org.apache.daffodil.japi.ValidationMode;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.smooks.cartridges.dfdl.DfdlSchema;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles DFDL schemas into saved Daffodil processors under <code>META-INF/smooks/dfdl-cartridge/</code> in the build
+ * output directory. <code>dfdl:parser</code> and <code>dfdl:unparser</code> reload a saved processor from the classpath
+ * instead of compiling its schema as long as the schema, the schemas it includes or imports, the distinguished root
+ * node, and the Daffodil version are unchanged.
+ */
+@Mojo(name = "precompile", defaultPhase = LifecyclePhase.PROCESS_CLASSES, requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
+public class PrecompileMojo extends AbstractMojo {
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    protected MavenProject project;
+
+    /**
+     * The DFDL schemas to compile.
+     */
+    @Parameter(required = true)
+    protected List<Schema> schemas;
+
+    /**
+     * The directory where the compiled schemas are saved.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}/" + DfdlSchema.PRECOMPILED_SCHEMAS_LOCATION, required = true)
+    protected File outputDirectory;
+
+    @Parameter(property = "smooks.dfdl.precompile.skip", defaultValue = "false")
+    protected boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping DFDL schema compilation");
+            return;
+        }
+
+        final Thread currentThread = Thread.currentThread();
+        final ClassLoader contextClassLoader = currentThread.getContextClassLoader();
+        try (URLClassLoader projectClassLoader = newProjectClassLoader()) {
+            // schemas and the schemas they include or import are resolved from the project's classpath
+            currentThread.setContextClassLoader(projectClassLoader);
+            for (Schema schema : schemas) {
+                final DfdlSchema dfdlSchema = new DfdlSchema(resolveSchemaUri(schema.getUri(), projectClassLoader), ValidationMode.Off, false, false, schema.getDistinguishedRootNode(), null, false);
+                getLog().info(String.format("Compiling DFDL schema %s to %s", schema.getUri(), dfdlSchema.precompile(outputDirectory.toPath()).getFileName()));
+            }
+        } catch (MojoExecutionException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new MojoExecutionException("Failed to compile DFDL schema", t);
+        } finally {
+            currentThread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    protected URLClassLoader newProjectClassLoader() throws DependencyResolutionRequiredException, MalformedURLException {
+        final List<URL> classpathUrls = new ArrayList<>();
+        for (String classpathElement : project.getCompileClasspathElements()) {
+            classpathUrls.add(new File(classpathElement).toURI().toURL());
+        }
+
+        return new URLClassLoader(classpathUrls.toArray(new URL[0]), getClass().getClassLoader());
+    }
+
+    /**
+     * Resolves the schema URI the same way as the <code>schemaUri</code> attribute of <code>dfdl:parser</code> and
+     * <code>dfdl:unparser</code> with the exception that file paths are relative to the project's base directory.
+     */
+    protected URI resolveSchemaUri(final String schemaUri, final ClassLoader classLoader) throws MojoExecutionException, URISyntaxException {
+        if (schemaUri == null) {
+            throw new MojoExecutionException("Missing DFDL schema URI");
+        }
+        final File file = new File(schemaUri).isAbsolute() ? new File(schemaUri) : new File(project.getBasedir(), schemaUri);
+        if (file.exists()) {
+            return file.toURI();
+        } else {
+            final URL resource = classLoader.getResource(schemaUri.startsWith("/") ? schemaUri.replaceFirst("/", "") : schemaUri);
+            if (resource != null) {
+                return resource.toURI();
+            } else {
+                throw new MojoExecutionException(String.format("Unable to resolve DFDL schema location: %s", schemaUri));
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Smooks DFDL Cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.dfdl.maven;
+
+import org.apache.daffodil.japi.DataProcessor;
+import org.apache.daffodil.japi.ValidationMode;
+import org.apache.maven.model.Build;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.smooks.cartridges.dfdl.DfdlSchema;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PrecompileMojoTestCase {
+
+    @Test
+    public void testExecute(@TempDir Path tempDir) throws Throwable {
+        PrecompileMojo precompileMojo = newPrecompileMojo(tempDir);
+        precompileMojo.execute();
+
+        DfdlSchema dfdlSchema = new DfdlSchema(getClass().getResource("/csv.dfdl.xsd").toURI(), ValidationMode.Off, false, false, null, null, false) {
+            @Override
+            protected DataProcessor compileSource() {
+                throw new AssertionError("DFDL schema was compiled instead of reloaded");
+            }
+        };
+        assertTrue(Files.exists(precompileMojo.outputDirectory.toPath().resolve(dfdlSchema.getPrecompiledSchemaName())));
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{tempDir.toUri().toURL()}, null)) {
+            dfdlSchema.setClassLoader(classLoader);
+            assertFalse(dfdlSchema.compile().isError());
+        }
+    }
+
+    @Test
+    public void testExecuteGivenSkip(@TempDir Path tempDir) throws Throwable {
+        PrecompileMojo precompileMojo = newPrecompileMojo(tempDir);
+        precompileMojo.skip = true;
+        precompileMojo.execute();
+
+        assertFalse(precompileMojo.outputDirectory.exists());
+    }
+
+    private PrecompileMojo newPrecompileMojo(Path tempDir) {
+        Schema schema = new Schema();
+        schema.setUri("/csv.dfdl.xsd");
+
+        Build build = new Build();
+        build.setOutputDirectory(tempDir.toString());
+        MavenProject project = new MavenProject();
+        project.setFile(tempDir.resolve("pom.xml").toFile());
+        project.setBuild(build);
+
+        PrecompileMojo precompileMojo = new PrecompileMojo();
+        precompileMojo.project = project;
+        precompileMojo.schemas = Collections.singletonList(schema);
+        precompileMojo.outputDirectory = new File(tempDir.toFile(), DfdlSchema.PRECOMPILED_SCHEMAS_LOCATION);
+
+        return precompileMojo;
+    }
+}